@@ -0,0 +1,98 @@
+package ru.practicum.benchmarks;
+
+import ru.practicum.dto.EndpointHitDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible hits for benchmarks. Uri popularity is skewed, so that a few uris get most hits
+ * as event pages do; ips come from a fixed pool and timestamps are spread over {@code span}
+ * before {@code end}.
+ */
+final class HitDataset {
+    static final String APP = "ewm-main-service";
+    static final int URI_COUNT = 10_000;
+    static final int IP_COUNT = 100_000;
+
+    private final SplittableRandom random;
+    private final LocalDateTime end;
+    private final long spanSeconds;
+
+    HitDataset(long seed, LocalDateTime end, Duration span) {
+        this.random = new SplittableRandom(seed);
+        this.end = end;
+        this.spanSeconds = span.toSeconds();
+    }
+
+    LocalDateTime start() {
+        return end.minusSeconds(spanSeconds);
+    }
+
+    LocalDateTime end() {
+        return end;
+    }
+
+    EndpointHitDto next() {
+        double u = random.nextDouble();
+        int uri = (int) (URI_COUNT * u * u * u);
+        int ip = random.nextInt(IP_COUNT);
+        return EndpointHitDto.builder()
+                .app(APP)
+                .uri(uriOf(uri))
+                .ip("10." + (ip >>> 16) + "." + ((ip >>> 8) & 0xff) + "." + (ip & 0xff))
+                .timestamp(start().plusSeconds(random.nextLong(spanSeconds)))
+                .build();
+    }
+
+    List<EndpointHitDto> take(int count) {
+        List<EndpointHitDto> hits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            hits.add(next());
+        }
+        return hits;
+    }
+
+    /**
+     * Generates hits lazily, so that datasets larger than the heap can be loaded.
+     */
+    Iterator<EndpointHitDto> iterator(long count) {
+        return new Iterator<>() {
+            private long generated;
+
+            @Override
+            public boolean hasNext() {
+                return generated < count;
+            }
+
+            @Override
+            public EndpointHitDto next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                generated++;
+                return HitDataset.this.next();
+            }
+        };
+    }
+
+    static String uriOf(int index) {
+        return "/events/" + index;
+    }
+
+    /**
+     * The most visited uris of the dataset.
+     */
+    static List<String> hottestUris(int count) {
+        List<String> uris = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            uris.add(uriOf(i));
+        }
+        return uris;
+    }
+}
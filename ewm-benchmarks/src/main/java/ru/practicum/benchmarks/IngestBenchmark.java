@@ -0,0 +1,97 @@
+package ru.practicum.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitBatchResultDto;
+import ru.practicum.stats.server.ingest.FsyncPolicy;
+import ru.practicum.stats.server.ingest.HitDeduplicator;
+import ru.practicum.stats.server.ingest.HitJournal;
+import ru.practicum.stats.server.ingest.IngestMode;
+import ru.practicum.stats.server.ingest.WriteBehindHitBuffer;
+import ru.practicum.stats.server.metrics.StatsMetrics;
+import ru.practicum.stats.server.service.StatsService;
+import ru.practicum.stats.server.storage.segment.SegmentHitStorage;
+import ru.practicum.stats.server.timeseries.RecentHitSeries;
+import ru.practicum.stats.server.top.TopUriTracker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hits per second through StatsService (validation, top uri tracking and storage),
+ * posted one by one and in batches, into the segment engine. All uris are stored once
+ * during setup, so that the measurement excludes the fsync of new dictionary entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestBenchmark {
+    private static final int BATCH_SIZE = 1000;
+    private static final int DISTINCT_HITS = 64 * BATCH_SIZE;
+
+    private List<EndpointHitDto> hits;
+    private int next;
+
+    private Path directory;
+    private SegmentHitStorage storage;
+    private StatsService statsService;
+
+    @Setup(Level.Trial)
+    public void openStorage() throws IOException {
+        hits = new HitDataset(7, LocalDateTime.now(), Duration.ofMinutes(5)).take(DISTINCT_HITS);
+        directory = Files.createTempDirectory("ewm-bench-ingest");
+        storage = new SegmentHitStorage(directory, 1 << 20, 60_000, 0);
+        storage.open();
+        HitJournal journal = new HitJournal(new ObjectMapper(), false, directory.resolve("journal"),
+                FsyncPolicy.NEVER);
+        StatsMetrics metrics = new StatsMetrics(new SimpleMeterRegistry(), "segment");
+        WriteBehindHitBuffer buffer = new WriteBehindHitBuffer(storage, journal, metrics, IngestMode.SYNC,
+                1, 1000, 1000, false);
+        statsService = new StatsService(storage, buffer, new HitDeduplicator(true, 600_000, 1_000_000),
+                new TopUriTracker(true, 1000), new RecentHitSeries(true, 2880), metrics);
+        statsService.saveAll(hits.iterator());
+    }
+
+    @TearDown(Level.Trial)
+    public void closeStorage() throws Exception {
+        storage.close();
+        Directories.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public EndpointHitDto single() {
+        EndpointHitDto hit = hits.get(next);
+        next = (next + 1) % DISTINCT_HITS;
+        return statsService.save(hit);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public HitBatchResultDto batched() {
+        int from = next;
+        next = (next + BATCH_SIZE) % DISTINCT_HITS;
+        return statsService.saveAll(hits.subList(from, from + BATCH_SIZE).iterator());
+    }
+}
@@ -0,0 +1,89 @@
+package ru.practicum.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.practicum.stats.server.storage.StatsQuery;
+import ru.practicum.stats.server.storage.segment.SegmentHitStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /stats over the whole range of a generated dataset held by the segment engine.
+ * Larger datasets are selected with -p hits=10000000,100000000; 100M hits take about 3.2 GB on disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StatsQueryBenchmark {
+    @Param({"1000000"})
+    private long hits;
+
+    @Param({"COUNT", "UNIQUE", "APPROXIMATE_UNIQUE"})
+    private CountMode mode;
+
+    @Param({"0", "10"})
+    private int uris;
+
+    private Path directory;
+    private SegmentHitStorage storage;
+    private StatsQuery query;
+    private StatsQuery topQuery;
+
+    @Setup(Level.Trial)
+    public void loadDataset() throws IOException {
+        directory = Files.createTempDirectory("ewm-bench-stats");
+        storage = new SegmentHitStorage(directory, 1 << 16, 60_000, 0);
+        storage.open();
+        HitDataset dataset = new HitDataset(42, LocalDateTime.of(2026, 1, 31, 0, 0), Duration.ofDays(30));
+        storage.saveAll(dataset.iterator(hits));
+
+        List<String> uriFilter = uris == 0 ? null : HitDataset.hottestUris(uris);
+        boolean unique = mode != CountMode.COUNT;
+        boolean approximate = mode == CountMode.APPROXIMATE_UNIQUE;
+        query = new StatsQuery(dataset.start(), dataset.end(), uriFilter, unique, approximate, null);
+        topQuery = new StatsQuery(dataset.start(), dataset.end(), uriFilter, unique, approximate, 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDataset() throws Exception {
+        storage.close();
+        Directories.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void stats(Blackhole blackhole) {
+        storage.streamStats(query, blackhole::consume);
+    }
+
+    @Benchmark
+    public void top10(Blackhole blackhole) {
+        storage.streamStats(topQuery, blackhole::consume);
+    }
+
+    public enum CountMode {
+        COUNT,
+        UNIQUE,
+        APPROXIMATE_UNIQUE
+    }
+}
@@ -0,0 +1,108 @@
+package ru.practicum.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Request handling on a platform thread pool of Tomcat's default size (200) against a virtual
+ * thread per request, as selected by spring.threads.virtual.enabled. A request does a little
+ * CPU work and then blocks for latencyMs, the way the main service waits for the stats server
+ * or the database. Concurrency is the number of JMH threads, 512 unless overridden with -t.
+ * SampleTime reports p99 per request.
+ *
+ * <p>guard holds a monitor or a ReentrantLock (one of many, so requests rarely contend) while
+ * blocked: with a monitor a virtual thread stays pinned to its carrier, which is what a
+ * synchronized section around I/O in a driver or pool would cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(512)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ThreadModeBenchmark {
+    private static final int PLATFORM_THREADS = 200;
+    private static final int STRIPES = 4096;
+    private static final long CPU_TOKENS = 1000;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"none", "monitor", "lock"})
+    private String guard;
+
+    @Param({"10"})
+    private int latencyMs;
+
+    private final Object[] monitors = new Object[STRIPES];
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final AtomicInteger nextStripe = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void start() {
+        for (int i = 0; i < STRIPES; i++) {
+            monitors[i] = new Object();
+            locks[i] = new ReentrantLock();
+        }
+        executor = "virtual".equals(threads)
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("request-", 1).factory())
+                : Executors.newFixedThreadPool(PLATFORM_THREADS, Thread.ofPlatform().name("request-", 1).factory());
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public Integer request() throws ExecutionException, InterruptedException {
+        return executor.submit(this::handle).get();
+    }
+
+    private Integer handle() throws InterruptedException {
+        Blackhole.consumeCPU(CPU_TOKENS);
+        int stripe = Math.floorMod(nextStripe.getAndIncrement(), STRIPES);
+        switch (guard) {
+            case "monitor":
+                synchronized (monitors[stripe]) {
+                    Thread.sleep(latencyMs);
+                }
+                break;
+            case "lock":
+                locks[stripe].lock();
+                try {
+                    Thread.sleep(latencyMs);
+                } finally {
+                    locks[stripe].unlock();
+                }
+                break;
+            default:
+                Thread.sleep(latencyMs);
+        }
+        return stripe;
+    }
+}
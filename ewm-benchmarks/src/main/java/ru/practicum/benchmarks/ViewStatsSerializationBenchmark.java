@@ -0,0 +1,133 @@
+package ru.practicum.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.server.dictionary.DictionaryKind;
+import ru.practicum.stats.server.dictionary.HitDictionary;
+import ru.practicum.stats.server.entity.Hit;
+import ru.practicum.stats.server.mapper.HitMapper;
+import ru.practicum.stats.server.repository.HitCount;
+import ru.practicum.stats.server.repository.HitDictionaryRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CPU side of a /stats response: resolving dictionary ids to ViewStatsDto and writing
+ * them as a JSON array or NDJSON, plus the HitMapper conversions of the ingest path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ViewStatsSerializationBenchmark {
+    @Param({"100", "10000"})
+    private int rows;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final HitMapper hitMapper = new HitMapper();
+
+    private HitDictionary dictionary;
+    private List<HitCount> counts;
+    private List<ViewStatsDto> stats;
+    private EndpointHitDto hitDto;
+    private Hit hit;
+
+    @Setup
+    public void prepare() {
+        dictionary = new HitDictionary(new InMemoryDictionaryRepository());
+        int appId = dictionary.appId(HitDataset.APP);
+        counts = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            counts.add(new HitCount(appId, dictionary.uriId(HitDataset.uriOf(i)), (long) (rows - i)));
+        }
+        stats = dictionary.toViewStats(counts);
+        hitDto = new HitDataset(1, LocalDateTime.of(2026, 1, 31, 0, 0), Duration.ofDays(1)).next();
+        hit = hitMapper.toEntity(hitDto);
+        hit.setId(1L);
+    }
+
+    @Benchmark
+    public List<ViewStatsDto> resolveNames() {
+        return dictionary.toViewStats(counts);
+    }
+
+    @Benchmark
+    public byte[] jsonArray() throws IOException {
+        return objectMapper.writeValueAsBytes(stats);
+    }
+
+    @Benchmark
+    public byte[] ndjson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            for (ViewStatsDto stat : stats) {
+                generator.writePOJO(stat);
+                generator.writeRaw('\n');
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Hit toEntity() {
+        return hitMapper.toEntity(hitDto);
+    }
+
+    @Benchmark
+    public EndpointHitDto toDto() {
+        return hitMapper.toDto(hit, HitDataset.APP, hitDto.getUri());
+    }
+
+    /**
+     * Dictionary without a database; every value is already cached by HitDictionary after setup.
+     */
+    private static final class InMemoryDictionaryRepository extends HitDictionaryRepository {
+        private final Map<DictionaryKind, Map<String, Integer>> ids = new HashMap<>();
+
+        InMemoryDictionaryRepository() {
+            super(null);
+        }
+
+        @Override
+        public int getOrCreate(DictionaryKind kind, String value) {
+            Map<String, Integer> kindIds = ids.computeIfAbsent(kind, k -> new HashMap<>());
+            return kindIds.computeIfAbsent(value, v -> kindIds.size() + 1);
+        }
+
+        @Override
+        public Map<String, Integer> findIds(DictionaryKind kind, Collection<String> values) {
+            return Map.of();
+        }
+
+        @Override
+        public Map<Integer, String> findValues(DictionaryKind kind, Collection<Integer> ids) {
+            return Map.of();
+        }
+    }
+}
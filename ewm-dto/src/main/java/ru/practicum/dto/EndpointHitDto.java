@@ -19,4 +19,8 @@ public class EndpointHitDto {
     private String ip;
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime timestamp;
+    /**
+     * Optional. A hit sent again with the same key within the server's dedup window is counted once.
+     */
+    private String idempotencyKey;
 }
\ No newline at end of file
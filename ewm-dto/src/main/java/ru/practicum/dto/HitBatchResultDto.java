@@ -0,0 +1,16 @@
+package ru.practicum.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HitBatchResultDto {
+    private long received;
+    private long saved;
+    private long duplicates;
+}
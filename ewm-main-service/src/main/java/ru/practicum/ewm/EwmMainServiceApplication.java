@@ -3,9 +3,11 @@ package ru.practicum.ewm;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ComponentScan(basePackages = {"ru.practicum.ewm", "ru.practicum.stats"})
+@EnableScheduling
 public class EwmMainServiceApplication {
 
     public static void main(String[] args) {
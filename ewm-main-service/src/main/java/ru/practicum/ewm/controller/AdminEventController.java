@@ -2,14 +2,15 @@ package ru.practicum.ewm.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.dto.EventFullDto;
 import ru.practicum.dto.UpdateEventAdminRequest;
 import ru.practicum.ewm.entity.enums.EventState;
 import ru.practicum.ewm.exception.BadRequestException;
+import ru.practicum.ewm.pagination.OffsetPageRequest;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.service.EventService;
 
 import java.time.LocalDateTime;
@@ -22,22 +23,27 @@ public class AdminEventController {
     private final EventService eventService;
 
     @GetMapping
-    public List<EventFullDto> getEvents(
+    public ResponseEntity<List<EventFullDto>> getEvents(
             @RequestParam(required = false) List<Long> users,
             @RequestParam(required = false) List<EventState> states,
             @RequestParam(required = false) List<Long> categories,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeStart,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeEnd,
             @RequestParam(defaultValue = "0") int from,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after) {
+        if (after != null) {
+            return eventService.getAdminEvents(users, states, categories, rangeStart, rangeEnd,
+                    PageCursor.decode(after), size).toResponse();
+        }
         if (from < 0) {
             throw new BadRequestException("from must be >= 0");
         }
         if (size <= 0) {
             throw new BadRequestException("size must be > 0");
         }
-        Pageable pageable = PageRequest.of(from / size, size);
-        return eventService.getAdminEvents(users, states, categories, rangeStart, rangeEnd, from, size, pageable);
+        return ResponseEntity.ok(eventService.getAdminEvents(users, states, categories, rangeStart, rangeEnd,
+                from, size, OffsetPageRequest.of(from, size)));
     }
 
     @PatchMapping("/{eventId}")
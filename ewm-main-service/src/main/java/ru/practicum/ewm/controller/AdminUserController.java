@@ -2,12 +2,13 @@ package ru.practicum.ewm.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.dto.NewUserRequest;
 import ru.practicum.dto.UserDto;
+import ru.practicum.ewm.pagination.OffsetPageRequest;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.service.UserService;
 
 import java.util.List;
@@ -25,11 +26,14 @@ public class AdminUserController {
     }
 
     @GetMapping
-    public List<UserDto> getUsers(@RequestParam(required = false) List<Long> ids,
-                                  @RequestParam(defaultValue = "0") int from,
-                                  @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(from / size, size);
-        return userService.getUsers(ids, pageable);
+    public ResponseEntity<List<UserDto>> getUsers(@RequestParam(required = false) List<Long> ids,
+                                                  @RequestParam(defaultValue = "0") int from,
+                                                  @RequestParam(defaultValue = "10") int size,
+                                                  @RequestParam(required = false) String after) {
+        if (after != null) {
+            return userService.getUsers(ids, PageCursor.decode(after), size).toResponse();
+        }
+        return ResponseEntity.ok(userService.getUsers(ids, OffsetPageRequest.of(from, size)));
     }
 
     @DeleteMapping("/{userId}")
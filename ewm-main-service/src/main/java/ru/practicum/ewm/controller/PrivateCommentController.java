@@ -2,13 +2,14 @@ package ru.practicum.ewm.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.dto.CommentDto;
 import ru.practicum.dto.NewCommentDto;
 import ru.practicum.dto.UpdateCommentRequest;
+import ru.practicum.ewm.pagination.OffsetPageRequest;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.service.CommentService;
 
 import java.util.List;
@@ -42,10 +43,13 @@ public class PrivateCommentController {
     }
 
     @GetMapping
-    public List<CommentDto> getUserComments(@PathVariable("userId") Long userId,
-                                           @RequestParam(defaultValue = "0") int from,
-                                           @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(from / size, size);
-        return commentService.getUserComments(userId, pageable);
+    public ResponseEntity<List<CommentDto>> getUserComments(@PathVariable("userId") Long userId,
+                                                            @RequestParam(defaultValue = "0") int from,
+                                                            @RequestParam(defaultValue = "10") int size,
+                                                            @RequestParam(required = false) String after) {
+        if (after != null) {
+            return commentService.getUserComments(userId, PageCursor.decode(after), size).toResponse();
+        }
+        return ResponseEntity.ok(commentService.getUserComments(userId, OffsetPageRequest.of(from, size)));
     }
 }
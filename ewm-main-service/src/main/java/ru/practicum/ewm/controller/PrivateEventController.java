@@ -2,14 +2,13 @@ package ru.practicum.ewm.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.dto.EventFullDto;
 import ru.practicum.dto.EventShortDto;
 import ru.practicum.dto.NewEventDto;
 import ru.practicum.dto.UpdateEventUserRequest;
+import ru.practicum.ewm.pagination.OffsetPageRequest;
 import ru.practicum.ewm.service.EventService;
 
 import java.util.List;
@@ -24,8 +23,7 @@ public class PrivateEventController {
     public List<EventShortDto> getUserEvents(@PathVariable Long userId,
                                               @RequestParam(defaultValue = "0") int from,
                                               @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(from / size, size);
-        return eventService.getUserEvents(userId, pageable);
+        return eventService.getUserEvents(userId, OffsetPageRequest.of(from, size));
     }
 
     @PostMapping
@@ -1,10 +1,11 @@
 package ru.practicum.ewm.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.dto.CategoryDto;
+import ru.practicum.ewm.pagination.OffsetPageRequest;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.service.CategoryService;
 
 import java.util.List;
@@ -16,10 +17,13 @@ public class PublicCategoryController {
     private final CategoryService categoryService;
 
     @GetMapping
-    public List<CategoryDto> getAll(@RequestParam(defaultValue = "0") int from,
-                                     @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(from / size, size);
-        return categoryService.getAll(pageable);
+    public ResponseEntity<List<CategoryDto>> getAll(@RequestParam(defaultValue = "0") int from,
+                                                    @RequestParam(defaultValue = "10") int size,
+                                                    @RequestParam(required = false) String after) {
+        if (after != null) {
+            return categoryService.getAll(PageCursor.decode(after), size).toResponse();
+        }
+        return ResponseEntity.ok(categoryService.getAll(OffsetPageRequest.of(from, size)));
     }
 
     @GetMapping("/{catId}")
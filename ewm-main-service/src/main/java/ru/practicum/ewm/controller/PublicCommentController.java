@@ -1,10 +1,11 @@
 package ru.practicum.ewm.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.dto.CommentDto;
+import ru.practicum.ewm.pagination.OffsetPageRequest;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.service.CommentService;
 
 import java.util.List;
@@ -15,11 +16,14 @@ public class PublicCommentController {
     private final CommentService commentService;
 
     @GetMapping("/events/{eventId}/comments")
-    public List<CommentDto> getEventComments(@PathVariable("eventId") Long eventId,
-                                             @RequestParam(defaultValue = "0") int from,
-                                             @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(from / size, size);
-        return commentService.getEventComments(eventId, pageable);
+    public ResponseEntity<List<CommentDto>> getEventComments(@PathVariable("eventId") Long eventId,
+                                                             @RequestParam(defaultValue = "0") int from,
+                                                             @RequestParam(defaultValue = "10") int size,
+                                                             @RequestParam(required = false) String after) {
+        if (after != null) {
+            return commentService.getEventComments(eventId, PageCursor.decode(after), size).toResponse();
+        }
+        return ResponseEntity.ok(commentService.getEventComments(eventId, OffsetPageRequest.of(from, size)));
     }
 
     @GetMapping("/events/{eventId}/comments/{commentId}")
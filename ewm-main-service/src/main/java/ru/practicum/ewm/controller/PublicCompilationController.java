@@ -1,10 +1,11 @@
 package ru.practicum.ewm.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.dto.CompilationDto;
+import ru.practicum.ewm.pagination.OffsetPageRequest;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.service.CompilationService;
 
 import java.util.List;
@@ -16,11 +17,14 @@ public class PublicCompilationController {
     private final CompilationService compilationService;
 
     @GetMapping
-    public List<CompilationDto> getAll(@RequestParam(required = false) Boolean pinned,
-                                       @RequestParam(defaultValue = "0") int from,
-                                       @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(from / size, size);
-        return compilationService.getAll(pinned, pageable);
+    public ResponseEntity<List<CompilationDto>> getAll(@RequestParam(required = false) Boolean pinned,
+                                                       @RequestParam(defaultValue = "0") int from,
+                                                       @RequestParam(defaultValue = "10") int size,
+                                                       @RequestParam(required = false) String after) {
+        if (after != null) {
+            return compilationService.getAll(pinned, PageCursor.decode(after), size).toResponse();
+        }
+        return ResponseEntity.ok(compilationService.getAll(pinned, OffsetPageRequest.of(from, size)));
     }
 
     @GetMapping("/{compId}")
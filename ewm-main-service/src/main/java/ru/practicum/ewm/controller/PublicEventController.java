@@ -2,12 +2,13 @@ package ru.practicum.ewm.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.dto.EventFullDto;
 import ru.practicum.dto.EventShortDto;
+import ru.practicum.ewm.pagination.OffsetPageRequest;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.service.EventService;
 
 import java.time.LocalDateTime;
@@ -20,7 +21,7 @@ public class PublicEventController {
     private final EventService eventService;
 
     @GetMapping
-    public List<EventShortDto> getEvents(
+    public ResponseEntity<List<EventShortDto>> getEvents(
             @RequestParam(required = false) String text,
             @RequestParam(required = false) List<Long> categories,
             @RequestParam(required = false) Boolean paid,
@@ -30,10 +31,15 @@ public class PublicEventController {
             @RequestParam(required = false) String sort,
             @RequestParam(defaultValue = "0") int from,
             @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
             HttpServletRequest request) {
-        Pageable pageable = PageRequest.of(from / size, size);
         String ip = getClientIp(request);
-        return eventService.getPublicEvents(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, pageable, ip);
+        if (after != null) {
+            return eventService.getPublicEvents(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort,
+                    PageCursor.decode(after), size, ip).toResponse();
+        }
+        return ResponseEntity.ok(eventService.getPublicEvents(text, categories, paid, rangeStart, rangeEnd,
+                onlyAvailable, sort, OffsetPageRequest.of(from, size), ip));
     }
 
     @GetMapping("/{id:[0-9]+}")
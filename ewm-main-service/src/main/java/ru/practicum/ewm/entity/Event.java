@@ -2,6 +2,7 @@ package ru.practicum.ewm.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import ru.practicum.ewm.entity.enums.EventState;
 
 import java.time.LocalDateTime;
@@ -51,6 +52,18 @@ public class Event {
     @Column(nullable = false)
     private Integer participantLimit;
 
+    // Changed only by conditional bulk updates in EventRepository, never by entity flushes.
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Long confirmedRequests = 0L;
+
+    // Periodically copied from the stats server by EventViewsSynchronizer, used only for sorting.
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Long views = 0L;
+
     private LocalDateTime publishedOn;
 
     @Column(nullable = false)
@@ -9,13 +9,12 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 public class CompilationMapper {
-    public static CompilationDto toDto(Compilation compilation, Map<Long, Long> confirmedRequestsMap, Map<Long, Long> viewsMap) {
+    public static CompilationDto toDto(Compilation compilation, Map<Long, Long> viewsMap) {
         Set<EventShortDto> events = null;
         if (compilation.getEvents() != null) {
             events = compilation.getEvents().stream()
                     .map(event -> EventMapper.toShortDto(
                             event,
-                            confirmedRequestsMap.getOrDefault(event.getId(), 0L),
                             viewsMap.getOrDefault(event.getId(), 0L)))
                     .collect(Collectors.toSet());
         }
@@ -0,0 +1,44 @@
+package ru.practicum.ewm.pagination;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.ewm.exception.BadRequestException;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record CursorPage<T>(List<T> items, String nextCursor) {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * One row more than the page size is fetched to find out whether a next page exists.
+     */
+    public static Limit limit(int size) {
+        if (size <= 0) {
+            throw new BadRequestException("size must be > 0");
+        }
+        return Limit.of(size + 1);
+    }
+
+    public static <E, T> CursorPage<T> of(List<E> rows, int size,
+                                          Function<E, PageCursor> cursorOf,
+                                          Function<List<E>, List<T>> mapper) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(mapper.apply(rows), null);
+        }
+        List<E> page = rows.subList(0, size);
+        return new CursorPage<>(mapper.apply(page), cursorOf.apply(page.get(size - 1)).encode());
+    }
+
+    /**
+     * The next cursor travels in a header so that the body keeps the plain list shape;
+     * the header is absent on the last page.
+     */
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (nextCursor != null) {
+            builder.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return builder.body(items);
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.ewm.pagination;
+
+import ru.practicum.ewm.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position: the sort key and id of the last row of the previous page.
+ */
+public record PageCursor(String order, String key, long id) {
+    public static final String ID_ORDER = "id";
+    private static final String SEPARATOR = "|";
+
+    public static PageCursor of(String order, Object key, long id) {
+        return new PageCursor(order, String.valueOf(key), id);
+    }
+
+    public static PageCursor ofId(long id) {
+        return of(ID_ORDER, id, id);
+    }
+
+    /**
+     * Id to continue after for lists ordered by id; 0 for the first page.
+     */
+    public static long idAfter(PageCursor cursor) {
+        return cursor != null ? cursor.requireOrder(ID_ORDER).id() : 0L;
+    }
+
+    /**
+     * Returns null for a blank value, which requests the first page in cursor mode.
+     */
+    public static PageCursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new BadRequestException("Invalid cursor: " + value);
+            }
+            return new PageCursor(parts[0], parts[1], Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + value);
+        }
+    }
+
+    public String encode() {
+        String raw = order + SEPARATOR + key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public PageCursor requireOrder(String expectedOrder) {
+        if (!expectedOrder.equals(order)) {
+            throw new BadRequestException("Cursor was issued for a different sort order");
+        }
+        return this;
+    }
+
+    public LocalDateTime keyAsDateTime() {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor key: " + key);
+        }
+    }
+
+    public long keyAsLong() {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor key: " + key);
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package ru.practicum.ewm.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.ewm.entity.Category;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     Page<Category> findAll(Pageable pageable);
 
+    List<Category> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
     Optional<Category> findByName(String name);
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package ru.practicum.ewm.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.ewm.entity.Comment;
 import ru.practicum.ewm.entity.enums.CommentStatus;
@@ -12,11 +14,20 @@ import java.util.Optional;
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     Page<Comment> findByEventId(Long eventId, Pageable pageable);
 
+    @EntityGraph(attributePaths = "author")
     Page<Comment> findByEventIdAndStatus(Long eventId, CommentStatus status, Pageable pageable);
 
+    @EntityGraph(attributePaths = "author")
+    List<Comment> findByEventIdAndStatusAndIdGreaterThanOrderByIdAsc(Long eventId, CommentStatus status,
+                                                                     Long afterId, Limit limit);
+
     Optional<Comment> findByIdAndAuthorId(Long commentId, Long authorId);
 
+    @EntityGraph(attributePaths = "author")
     Page<Comment> findByAuthorId(Long authorId, Pageable pageable);
 
+    @EntityGraph(attributePaths = "author")
+    List<Comment> findByAuthorIdAndIdGreaterThanOrderByIdAsc(Long authorId, Long afterId, Limit limit);
+
     List<Comment> findByEventId(Long eventId);
 }
\ No newline at end of file
@@ -1,12 +1,34 @@
 package ru.practicum.ewm.repository;
 
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.entity.Compilation;
 
+import java.util.List;
+import java.util.Optional;
+
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
-    Page<Compilation> findByPinned(Boolean pinned, Pageable pageable);
+    // Pages select ids first: paging a fetch join over the events collection would be applied in memory.
+    @Query("SELECT c.id FROM Compilation c ORDER BY c.id")
+    List<Long> findIds(Pageable pageable);
+
+    @Query("SELECT c.id FROM Compilation c WHERE c.pinned = :pinned ORDER BY c.id")
+    List<Long> findIdsByPinned(@Param("pinned") Boolean pinned, Pageable pageable);
+
+    @Query("SELECT c.id FROM Compilation c WHERE c.id > :afterId ORDER BY c.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT c.id FROM Compilation c WHERE c.pinned = :pinned AND c.id > :afterId ORDER BY c.id")
+    List<Long> findIdsByPinnedAfter(@Param("pinned") Boolean pinned, @Param("afterId") Long afterId, Limit limit);
+
+    @EntityGraph(attributePaths = {"events", "events.category", "events.initiator"})
+    List<Compilation> findByIdIn(List<Long> compIds);
 
-    Page<Compilation> findAll(Pageable pageable);
+    @Override
+    @EntityGraph(attributePaths = {"events", "events.category", "events.initiator"})
+    Optional<Compilation> findById(Long compId);
 }
@@ -1,8 +1,11 @@
 package ru.practicum.ewm.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.entity.Event;
@@ -12,17 +15,30 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-public interface EventRepository extends JpaRepository<Event, Long> {
+public interface EventRepository extends JpaRepository<Event, Long>, EventRepositoryCustom {
+    @EntityGraph(attributePaths = {"category", "initiator"})
     Page<Event> findByInitiatorId(Long userId, Pageable pageable);
 
     Optional<Event> findByIdAndInitiatorId(Long eventId, Long userId);
 
-    @Query("SELECT e FROM Event e WHERE " +
-            "(:users IS NULL OR e.initiator.id IN :users) AND " +
+    String ADMIN_FILTERS = "(:users IS NULL OR e.initiator.id IN :users) AND " +
             "(:states IS NULL OR e.state IN :states) AND " +
             "(:categories IS NULL OR e.category.id IN :categories) AND " +
             "(e.eventDate >= :rangeStart) AND " +
-            "(e.eventDate <= :rangeEnd)")
+            "(e.eventDate <= :rangeEnd)";
+
+    String PUBLISHED_FILTERS = "e.state = 'PUBLISHED' AND " +
+            "(:text IS NULL OR LOWER(e.annotation) LIKE :textPattern OR " +
+            "LOWER(e.description) LIKE :textPattern) AND " +
+            "(:categories IS NULL OR e.category.id IN :categories) AND " +
+            "(:paid IS NULL OR e.paid = :paid) AND " +
+            "(:onlyAvailable = FALSE OR e.participantLimit = 0 OR e.confirmedRequests < e.participantLimit) AND " +
+            "(e.eventDate >= :rangeStart) AND " +
+            "(e.eventDate <= :rangeEnd)";
+
+    @EntityGraph(attributePaths = {"category", "initiator"})
+    @Query(value = "SELECT e FROM Event e WHERE " + ADMIN_FILTERS,
+            countQuery = "SELECT COUNT(e) FROM Event e WHERE " + ADMIN_FILTERS)
     Page<Event> findEventsByAdminFilters(
             @Param("users") List<Long> users,
             @Param("states") List<EventState> states,
@@ -31,23 +47,98 @@ public interface EventRepository extends JpaRepository<Event, Long> {
             @Param("rangeEnd") LocalDateTime rangeEnd,
             Pageable pageable);
 
-    @Query("SELECT e FROM Event e WHERE " +
-            "e.state = 'PUBLISHED' AND " +
-            "(:text IS NULL OR LOWER(e.annotation) LIKE :textPattern OR " +
-            "LOWER(e.description) LIKE :textPattern) AND " +
-            "(:categories IS NULL OR e.category.id IN :categories) AND " +
-            "(:paid IS NULL OR e.paid = :paid) AND " +
-            "(e.eventDate >= :rangeStart) AND " +
-            "(e.eventDate <= :rangeEnd)")
+    @EntityGraph(attributePaths = {"category", "initiator"})
+    @Query("SELECT e FROM Event e WHERE " + ADMIN_FILTERS + " AND e.id > :afterId ORDER BY e.id")
+    List<Event> findEventsByAdminFiltersAfter(
+            @Param("users") List<Long> users,
+            @Param("states") List<EventState> states,
+            @Param("categories") List<Long> categories,
+            @Param("rangeStart") LocalDateTime rangeStart,
+            @Param("rangeEnd") LocalDateTime rangeEnd,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    @EntityGraph(attributePaths = {"category", "initiator"})
+    @Query(value = "SELECT e FROM Event e WHERE " + PUBLISHED_FILTERS,
+            countQuery = "SELECT COUNT(e) FROM Event e WHERE " + PUBLISHED_FILTERS)
     Page<Event> findPublishedEventsByFilters(
             @Param("text") String text,
             @Param("textPattern") String textPattern,
             @Param("categories") List<Long> categories,
             @Param("paid") Boolean paid,
+            @Param("onlyAvailable") boolean onlyAvailable,
             @Param("rangeStart") LocalDateTime rangeStart,
             @Param("rangeEnd") LocalDateTime rangeEnd,
             Pageable pageable);
 
+    @EntityGraph(attributePaths = {"category", "initiator"})
+    @Query("SELECT e FROM Event e WHERE " + PUBLISHED_FILTERS + " AND " +
+            "(e.eventDate > :afterDate OR (e.eventDate = :afterDate AND e.id > :afterId)) " +
+            "ORDER BY e.eventDate, e.id")
+    List<Event> findPublishedEventsByFiltersAfterDate(
+            @Param("text") String text,
+            @Param("textPattern") String textPattern,
+            @Param("categories") List<Long> categories,
+            @Param("paid") Boolean paid,
+            @Param("onlyAvailable") boolean onlyAvailable,
+            @Param("rangeStart") LocalDateTime rangeStart,
+            @Param("rangeEnd") LocalDateTime rangeEnd,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    @EntityGraph(attributePaths = {"category", "initiator"})
+    @Query("SELECT e FROM Event e WHERE " + PUBLISHED_FILTERS + " AND " +
+            "(e.views < :afterViews OR (e.views = :afterViews AND e.id < :afterId)) " +
+            "ORDER BY e.views DESC, e.id DESC")
+    List<Event> findPublishedEventsByFiltersAfterViews(
+            @Param("text") String text,
+            @Param("textPattern") String textPattern,
+            @Param("categories") List<Long> categories,
+            @Param("paid") Boolean paid,
+            @Param("onlyAvailable") boolean onlyAvailable,
+            @Param("rangeStart") LocalDateTime rangeStart,
+            @Param("rangeEnd") LocalDateTime rangeEnd,
+            @Param("afterViews") Long afterViews,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    @Query(value = "SELECT e.id FROM events e, plainto_tsquery('simple', :text) q WHERE " +
+            "e.state = 'PUBLISHED' AND e.search_vector @@ q AND " +
+            "(:allCategories = TRUE OR e.category_id IN (:categories)) AND " +
+            "(CAST(:paid AS boolean) IS NULL OR e.paid = CAST(:paid AS boolean)) AND " +
+            "(:onlyAvailable = FALSE OR e.participant_limit = 0 OR e.confirmed_requests < e.participant_limit) AND " +
+            "(e.event_date >= :rangeStart) AND " +
+            "(e.event_date <= :rangeEnd) " +
+            "ORDER BY ts_rank(e.search_vector, q) DESC, e.id",
+            nativeQuery = true)
+    List<Long> findPublishedEventIdsByRelevance(
+            @Param("text") String text,
+            @Param("allCategories") boolean allCategories,
+            @Param("categories") List<Long> categories,
+            @Param("paid") Boolean paid,
+            @Param("onlyAvailable") boolean onlyAvailable,
+            @Param("rangeStart") LocalDateTime rangeStart,
+            @Param("rangeEnd") LocalDateTime rangeEnd,
+            Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Event e SET e.confirmedRequests = e.confirmedRequests + 1 " +
+            "WHERE e.id = :eventId AND (e.participantLimit = 0 OR e.confirmedRequests < e.participantLimit)")
+    int incrementConfirmedRequests(@Param("eventId") Long eventId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Event e SET e.confirmedRequests = e.confirmedRequests - 1 " +
+            "WHERE e.id = :eventId AND e.confirmedRequests > 0")
+    int decrementConfirmedRequests(@Param("eventId") Long eventId);
+
+    @Query("SELECT e.id FROM Event e WHERE e.state = :state AND e.id > :afterId ORDER BY e.id")
+    List<Long> findIdsByState(@Param("state") EventState state, @Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT e.confirmedRequests FROM Event e WHERE e.id = :eventId")
+    Long findConfirmedRequestsById(@Param("eventId") Long eventId);
+
+    @EntityGraph(attributePaths = {"category", "initiator"})
     List<Event> findByIdIn(List<Long> eventIds);
 
     boolean existsByCategoryId(Long categoryId);
@@ -0,0 +1,7 @@
+package ru.practicum.ewm.repository;
+
+import java.util.Map;
+
+public interface EventRepositoryCustom {
+    int updateViews(Map<Long, Long> viewsByEventId);
+}
@@ -0,0 +1,35 @@
+package ru.practicum.ewm.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class EventRepositoryCustomImpl implements EventRepositoryCustom {
+    private static final String UPDATE_VIEWS_SQL = "UPDATE events SET views = ? WHERE id = ? AND views <> ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int updateViews(Map<Long, Long> viewsByEventId) {
+        if (viewsByEventId.isEmpty()) {
+            return 0;
+        }
+        List<Map.Entry<Long, Long>> rows = new ArrayList<>(viewsByEventId.entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_VIEWS_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.getValue());
+            ps.setLong(2, row.getKey());
+            ps.setLong(3, row.getValue());
+        });
+        int updated = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                updated += Math.max(count, 0);
+            }
+        }
+        return updated;
+    }
+}
@@ -16,5 +16,5 @@ public interface ParticipationRequestRepository extends JpaRepository<Participat
 
     Optional<ParticipationRequest> findByEventIdAndRequesterId(Long eventId, Long requesterId);
 
-    Long countByEventIdAndStatus(Long eventId, RequestStatus status);
+    List<ParticipationRequest> findByEventIdAndStatus(Long eventId, RequestStatus status);
 }
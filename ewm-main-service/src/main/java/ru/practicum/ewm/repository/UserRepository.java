@@ -1,5 +1,6 @@
 package ru.practicum.ewm.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -11,5 +12,9 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     Page<User> findByIdIn(List<Long> ids, Pageable pageable);
 
+    List<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    List<User> findByIdInAndIdGreaterThanOrderByIdAsc(List<Long> ids, Long afterId, Limit limit);
+
     Optional<User> findByEmail(String email);
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package ru.practicum.ewm.service;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.dto.CategoryDto;
 import ru.practicum.dto.NewCategoryDto;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.PageCursor;
 
 import java.util.List;
 
@@ -11,6 +13,8 @@ public interface CategoryService {
 
     List<CategoryDto> getAll(Pageable pageable);
 
+    CursorPage<CategoryDto> getAll(PageCursor after, int size);
+
     CategoryDto getById(Long id);
 
     CategoryDto update(Long id, CategoryDto categoryDto);
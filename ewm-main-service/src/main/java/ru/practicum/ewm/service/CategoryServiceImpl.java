@@ -10,6 +10,8 @@ import ru.practicum.ewm.entity.Category;
 import ru.practicum.ewm.exception.ConflictException;
 import ru.practicum.ewm.exception.NotFoundException;
 import ru.practicum.ewm.mapper.CategoryMapper;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.repository.CategoryRepository;
 import ru.practicum.ewm.repository.EventRepository;
 
@@ -42,6 +44,14 @@ public class CategoryServiceImpl implements CategoryService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPage<CategoryDto> getAll(PageCursor after, int size) {
+        long afterId = PageCursor.idAfter(after);
+        List<Category> categories = categoryRepository.findByIdGreaterThanOrderByIdAsc(afterId, CursorPage.limit(size));
+        return CursorPage.of(categories, size, c -> PageCursor.ofId(c.getId()),
+                page -> page.stream().map(CategoryMapper::toDto).collect(Collectors.toList()));
+    }
+
     @Override
     public CategoryDto getById(Long id) {
         Category category = categoryRepository.findById(id)
@@ -4,6 +4,8 @@ import org.springframework.data.domain.Pageable;
 import ru.practicum.dto.CommentDto;
 import ru.practicum.dto.NewCommentDto;
 import ru.practicum.dto.UpdateCommentRequest;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.PageCursor;
 
 import java.util.List;
 
@@ -16,7 +18,11 @@ public interface CommentService {
 
     List<CommentDto> getEventComments(Long eventId, Pageable pageable);
 
+    CursorPage<CommentDto> getEventComments(Long eventId, PageCursor after, int size);
+
     List<CommentDto> getUserComments(Long userId, Pageable pageable);
 
+    CursorPage<CommentDto> getUserComments(Long userId, PageCursor after, int size);
+
     CommentDto getCommentById(Long commentId);
 }
\ No newline at end of file
@@ -16,6 +16,8 @@ import ru.practicum.ewm.entity.enums.EventState;
 import ru.practicum.ewm.exception.ConflictException;
 import ru.practicum.ewm.exception.NotFoundException;
 import ru.practicum.ewm.mapper.CommentMapper;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.repository.CommentRepository;
 import ru.practicum.ewm.repository.EventRepository;
 import ru.practicum.ewm.repository.UserRepository;
@@ -97,6 +99,19 @@ public class CommentServiceImpl implements CommentService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPage<CommentDto> getEventComments(Long eventId, PageCursor after, int size) {
+        if (!eventRepository.existsById(eventId)) {
+            throw new NotFoundException("Event with id=" + eventId + " was not found");
+        }
+
+        long afterId = PageCursor.idAfter(after);
+        List<Comment> comments = commentRepository.findByEventIdAndStatusAndIdGreaterThanOrderByIdAsc(
+                eventId, CommentStatus.PUBLISHED, afterId, CursorPage.limit(size));
+        return CursorPage.of(comments, size, c -> PageCursor.ofId(c.getId()),
+                page -> page.stream().map(CommentMapper::toDto).collect(Collectors.toList()));
+    }
+
     @Override
     public List<CommentDto> getUserComments(Long userId, Pageable pageable) {
         if (!userRepository.existsById(userId)) {
@@ -109,6 +124,19 @@ public class CommentServiceImpl implements CommentService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPage<CommentDto> getUserComments(Long userId, PageCursor after, int size) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("User with id=" + userId + " was not found");
+        }
+
+        long afterId = PageCursor.idAfter(after);
+        List<Comment> comments = commentRepository.findByAuthorIdAndIdGreaterThanOrderByIdAsc(
+                userId, afterId, CursorPage.limit(size));
+        return CursorPage.of(comments, size, c -> PageCursor.ofId(c.getId()),
+                page -> page.stream().map(CommentMapper::toDto).collect(Collectors.toList()));
+    }
+
     @Override
     public CommentDto getCommentById(Long commentId) {
         Comment comment = commentRepository.findById(commentId)
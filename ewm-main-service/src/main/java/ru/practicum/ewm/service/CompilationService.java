@@ -4,6 +4,8 @@ import org.springframework.data.domain.Pageable;
 import ru.practicum.dto.CompilationDto;
 import ru.practicum.dto.NewCompilationDto;
 import ru.practicum.dto.UpdateCompilationRequest;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.PageCursor;
 
 import java.util.List;
 
@@ -16,5 +18,7 @@ public interface CompilationService {
 
     List<CompilationDto> getAll(Boolean pinned, Pageable pageable);
 
+    CursorPage<CompilationDto> getAll(Boolean pinned, PageCursor after, int size);
+
     CompilationDto getById(Long compId);
 }
\ No newline at end of file
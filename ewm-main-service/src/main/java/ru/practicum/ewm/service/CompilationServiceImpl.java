@@ -9,12 +9,12 @@ import ru.practicum.dto.NewCompilationDto;
 import ru.practicum.dto.UpdateCompilationRequest;
 import ru.practicum.ewm.entity.Compilation;
 import ru.practicum.ewm.entity.Event;
-import ru.practicum.ewm.entity.enums.RequestStatus;
 import ru.practicum.ewm.exception.NotFoundException;
 import ru.practicum.ewm.mapper.CompilationMapper;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.repository.CompilationRepository;
 import ru.practicum.ewm.repository.EventRepository;
-import ru.practicum.ewm.repository.ParticipationRequestRepository;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -25,7 +25,6 @@ import java.util.stream.Collectors;
 public class CompilationServiceImpl implements CompilationService {
     private final CompilationRepository compilationRepository;
     private final EventRepository eventRepository;
-    private final ParticipationRequestRepository requestRepository;
 
     @Override
     @Transactional
@@ -77,16 +76,19 @@ public class CompilationServiceImpl implements CompilationService {
 
     @Override
     public List<CompilationDto> getAll(Boolean pinned, Pageable pageable) {
-        List<Compilation> compilations;
-        if (pinned != null) {
-            compilations = compilationRepository.findByPinned(pinned, pageable).getContent();
-        } else {
-            compilations = compilationRepository.findAll(pageable).getContent();
-        }
+        List<Long> compIds = pinned != null
+                ? compilationRepository.findIdsByPinned(pinned, pageable)
+                : compilationRepository.findIds(pageable);
+        return getCompilationDtos(compIds);
+    }
 
-        return compilations.stream()
-                .map(this::getCompilationDto)
-                .collect(Collectors.toList());
+    @Override
+    public CursorPage<CompilationDto> getAll(Boolean pinned, PageCursor after, int size) {
+        long afterId = PageCursor.idAfter(after);
+        List<Long> compIds = pinned != null
+                ? compilationRepository.findIdsByPinnedAfter(pinned, afterId, CursorPage.limit(size))
+                : compilationRepository.findIdsAfter(afterId, CursorPage.limit(size));
+        return CursorPage.of(compIds, size, PageCursor::ofId, this::getCompilationDtos);
     }
 
     @Override
@@ -96,21 +98,27 @@ public class CompilationServiceImpl implements CompilationService {
         return getCompilationDto(compilation);
     }
 
+    private List<CompilationDto> getCompilationDtos(List<Long> compIds) {
+        if (compIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Compilation> compilationsById = compilationRepository.findByIdIn(compIds).stream()
+                .collect(Collectors.toMap(Compilation::getId, c -> c));
+        return compIds.stream()
+                .map(compilationsById::get)
+                .map(this::getCompilationDto)
+                .collect(Collectors.toList());
+    }
+
     private CompilationDto getCompilationDto(Compilation compilation) {
-        Map<Long, Long> confirmedRequestsMap = new HashMap<>();
         Map<Long, Long> viewsMap = new HashMap<>();
 
-        if (compilation.getEvents() != null && !compilation.getEvents().isEmpty()) {
-            List<Long> eventIds = compilation.getEvents().stream()
-                    .map(Event::getId)
-                    .collect(Collectors.toList());
-
-            for (Long eventId : eventIds) {
-                confirmedRequestsMap.put(eventId, requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED));
-                viewsMap.put(eventId, 0L); // Views would be fetched from stats service if needed
+        if (compilation.getEvents() != null) {
+            for (Event event : compilation.getEvents()) {
+                viewsMap.put(event.getId(), 0L); // Views would be fetched from stats service if needed
             }
         }
 
-        return CompilationMapper.toDto(compilation, confirmedRequestsMap, viewsMap);
+        return CompilationMapper.toDto(compilation, viewsMap);
     }
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package ru.practicum.ewm.service;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.dto.*;
 import ru.practicum.ewm.entity.enums.EventState;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.PageCursor;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -19,11 +21,18 @@ public interface EventService {
     List<EventFullDto> getAdminEvents(List<Long> users, List<EventState> states, List<Long> categories,
                                       LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size, Pageable pageable);
 
+    CursorPage<EventFullDto> getAdminEvents(List<Long> users, List<EventState> states, List<Long> categories,
+                                            LocalDateTime rangeStart, LocalDateTime rangeEnd, PageCursor after, int size);
+
     EventFullDto updateByAdmin(Long eventId, UpdateEventAdminRequest request);
 
     List<EventShortDto> getPublicEvents(String text, List<Long> categories, Boolean paid,
                                         LocalDateTime rangeStart, LocalDateTime rangeEnd,
                                         Boolean onlyAvailable, String sort, Pageable pageable, String ip);
 
+    CursorPage<EventShortDto> getPublicEvents(String text, List<Long> categories, Boolean paid,
+                                              LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                              Boolean onlyAvailable, String sort, PageCursor after, int size, String ip);
+
     EventFullDto getPublicEvent(Long eventId, String ip);
 }
\ No newline at end of file
@@ -8,27 +8,28 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.dto.EndpointHitDto;
-import ru.practicum.dto.ViewStatsDto;
 import ru.practicum.dto.*;
 import ru.practicum.ewm.entity.Category;
 import ru.practicum.ewm.entity.Event;
 import ru.practicum.ewm.entity.User;
 import ru.practicum.ewm.entity.enums.EventState;
-import ru.practicum.ewm.entity.enums.RequestStatus;
 import ru.practicum.ewm.exception.BadRequestException;
 import ru.practicum.ewm.exception.ConflictException;
 import ru.practicum.ewm.exception.NotFoundException;
 import ru.practicum.ewm.mapper.EventMapper;
 import ru.practicum.ewm.mapper.LocationMapper;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.OffsetPageRequest;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.repository.CategoryRepository;
 import ru.practicum.ewm.repository.EventRepository;
-import ru.practicum.ewm.repository.ParticipationRequestRepository;
 import ru.practicum.ewm.repository.UserRepository;
-import ru.practicum.stats.client.StatsClient;
+import ru.practicum.stats.client.HitBuffer;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -39,8 +40,8 @@ public class EventServiceImpl implements EventService {
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
-    private final ParticipationRequestRepository requestRepository;
-    private final StatsClient statsClient;
+    private final HitBuffer hitBuffer;
+    private final EventViewsCache viewsCache;
 
     @Value("${spring.application.name}")
     private String appName;
@@ -49,6 +50,8 @@ public class EventServiceImpl implements EventService {
     private static final int MIN_HOURS_BEFORE_EVENT = 2;
     private static final LocalDateTime MIN_DATETIME = LocalDateTime.of(1970, 1, 1, 0, 0, 0);
     private static final LocalDateTime MAX_DATETIME = LocalDateTime.of(2099, 12, 31, 23, 59, 59);
+    private static final String EVENT_DATE_ORDER = "eventDate";
+    private static final String VIEWS_ORDER = "views";
 
     @Override
     @Transactional
@@ -78,7 +81,7 @@ public class EventServiceImpl implements EventService {
                 .build();
 
         Event saved = eventRepository.save(event);
-        return EventMapper.toFullDto(saved, 0L, 0L);
+        return EventMapper.toFullDto(saved, 0L);
     }
 
     @Override
@@ -91,8 +94,7 @@ public class EventServiceImpl implements EventService {
     public EventFullDto getUserEvent(Long userId, Long eventId) {
         Event event = eventRepository.findByIdAndInitiatorId(eventId, userId)
                 .orElseThrow(() -> new NotFoundException("Event with id=" + eventId + " was not found"));
-        Long confirmedRequests = requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED);
-        return EventMapper.toFullDto(event, confirmedRequests, 0L);
+        return EventMapper.toFullDto(event, 0L);
     }
 
     @Override
@@ -118,8 +120,7 @@ public class EventServiceImpl implements EventService {
         }
 
         Event saved = eventRepository.save(event);
-        Long confirmedRequests = requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED);
-        return EventMapper.toFullDto(saved, confirmedRequests, 0L);
+        return EventMapper.toFullDto(saved, 0L);
     }
 
     @Override
@@ -138,6 +139,24 @@ public class EventServiceImpl implements EventService {
         return getEventFullDtos(events);
     }
 
+    @Override
+    public CursorPage<EventFullDto> getAdminEvents(List<Long> users, List<EventState> states, List<Long> categories,
+                                                   LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                   PageCursor after, int size) {
+        if (rangeStart != null && rangeEnd != null && rangeStart.isAfter(rangeEnd)) {
+            throw new BadRequestException("rangeStart must be before rangeEnd");
+        }
+
+        LocalDateTime start = rangeStart != null ? rangeStart : MIN_DATETIME;
+        LocalDateTime end = rangeEnd != null ? rangeEnd : MAX_DATETIME;
+        List<Long> usersParam = (users != null && !users.isEmpty()) ? users : null;
+        List<EventState> statesParam = (states != null && !states.isEmpty()) ? states : null;
+        List<Long> categoriesParam = (categories != null && !categories.isEmpty()) ? categories : null;
+        List<Event> events = eventRepository.findEventsByAdminFiltersAfter(usersParam, statesParam, categoriesParam,
+                start, end, PageCursor.idAfter(after), CursorPage.limit(size));
+        return CursorPage.of(events, size, e -> PageCursor.ofId(e.getId()), this::getEventFullDtos);
+    }
+
     @Override
     @Transactional
     public EventFullDto updateByAdmin(Long eventId, UpdateEventAdminRequest request) {
@@ -171,8 +190,7 @@ public class EventServiceImpl implements EventService {
         updateEventFields(event, request);
 
         Event saved = eventRepository.save(event);
-        Long confirmedRequests = requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED);
-        return EventMapper.toFullDto(saved, confirmedRequests, 0L);
+        return EventMapper.toFullDto(saved, 0L);
     }
 
     @Override
@@ -188,57 +206,105 @@ public class EventServiceImpl implements EventService {
 
         Sort sortBy = Sort.by("eventDate");
         if ("VIEWS".equals(sort)) {
-            sortBy = Sort.by("id");
+            sortBy = Sort.by(Sort.Order.desc("views"), Sort.Order.desc("id"));
         }
 
-        Pageable sortedPageable = org.springframework.data.domain.PageRequest.of(
-                pageable.getPageNumber(), pageable.getPageSize(), sortBy);
+        Pageable sortedPageable = new OffsetPageRequest(pageable.getOffset(), pageable.getPageSize(), sortBy);
 
         String textPattern = text != null ? "%" + text.toLowerCase() + "%" : null;
         List<Long> categoriesParam = (categories != null && !categories.isEmpty()) ? categories : null;
 
-        List<Event> events = eventRepository.findPublishedEventsByFilters(
-                text, textPattern, categoriesParam, paid, start, end, sortedPageable).getContent();
+        boolean onlyAvailableParam = onlyAvailable != null && onlyAvailable;
 
-        if (onlyAvailable != null && onlyAvailable) {
-            events = events.stream()
-                    .filter(e -> {
-                        Long confirmed = requestRepository.countByEventIdAndStatus(e.getId(), RequestStatus.CONFIRMED);
-                        return e.getParticipantLimit() == 0 || confirmed < e.getParticipantLimit();
-                    })
-                    .collect(Collectors.toList());
+        List<Event> events;
+        if ("RELEVANCE".equals(sort) && text != null && !text.isBlank()) {
+            events = findPublishedEventsByRelevance(text, categoriesParam, paid, onlyAvailableParam, start, end, pageable);
+        } else {
+            events = eventRepository.findPublishedEventsByFilters(
+                    text, textPattern, categoriesParam, paid, onlyAvailableParam, start, end, sortedPageable).getContent();
         }
 
         saveHit("/events", ip);
 
-        List<EventShortDto> result = getEventShortDtos(events);
+        return getEventShortDtos(events);
+    }
 
+    @Override
+    public CursorPage<EventShortDto> getPublicEvents(String text, List<Long> categories, Boolean paid,
+                                                     LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                     Boolean onlyAvailable, String sort, PageCursor after,
+                                                     int size, String ip) {
+        if ("RELEVANCE".equals(sort)) {
+            throw new BadRequestException("Cursor pagination is not supported for sort=RELEVANCE");
+        }
+        if (rangeStart != null && rangeEnd != null && rangeStart.isAfter(rangeEnd)) {
+            throw new BadRequestException("rangeStart must be before rangeEnd");
+        }
+
+        LocalDateTime start = rangeStart != null ? rangeStart : LocalDateTime.now();
+        LocalDateTime end = rangeEnd != null ? rangeEnd : MAX_DATETIME;
+        String textPattern = text != null ? "%" + text.toLowerCase() + "%" : null;
+        List<Long> categoriesParam = (categories != null && !categories.isEmpty()) ? categories : null;
+        boolean onlyAvailableParam = onlyAvailable != null && onlyAvailable;
+
+        CursorPage<EventShortDto> page;
         if ("VIEWS".equals(sort)) {
-            result.sort((a, b) -> Long.compare(b.getViews() != null ? b.getViews() : 0L,
-                                                a.getViews() != null ? a.getViews() : 0L));
+            long afterViews = after != null ? after.requireOrder(VIEWS_ORDER).keyAsLong() : Long.MAX_VALUE;
+            long afterId = after != null ? after.id() : Long.MAX_VALUE;
+            List<Event> events = eventRepository.findPublishedEventsByFiltersAfterViews(text, textPattern,
+                    categoriesParam, paid, onlyAvailableParam, start, end, afterViews, afterId, CursorPage.limit(size));
+            page = CursorPage.of(events, size, e -> PageCursor.of(VIEWS_ORDER, e.getViews(), e.getId()),
+                    this::getEventShortDtos);
+        } else {
+            LocalDateTime afterDate = after != null ? after.requireOrder(EVENT_DATE_ORDER).keyAsDateTime() : MIN_DATETIME;
+            long afterId = after != null ? after.id() : 0L;
+            List<Event> events = eventRepository.findPublishedEventsByFiltersAfterDate(text, textPattern,
+                    categoriesParam, paid, onlyAvailableParam, start, end, afterDate, afterId, CursorPage.limit(size));
+            page = CursorPage.of(events, size, e -> PageCursor.of(EVENT_DATE_ORDER, e.getEventDate(), e.getId()),
+                    this::getEventShortDtos);
         }
 
-        return result;
+        saveHit("/events", ip);
+
+        return page;
     }
 
     @Override
     public EventFullDto getPublicEvent(Long eventId, String ip) {
-        Event event = eventRepository.findById(eventId)
-                .orElseThrow(() -> new NotFoundException("Event with id=" + eventId + " was not found"));
+        // Started before the event is loaded, so that the stats round trip overlaps with the query.
+        // The entry is discarded if the id is not a published event, so it does not take cache space.
+        CompletableFuture<Long> viewsLookup = viewsCache.getViewsAsync(eventId);
 
-        if (event.getState() != EventState.PUBLISHED) {
+        Event event = eventRepository.findById(eventId)
+                .filter(e -> e.getState() == EventState.PUBLISHED)
+                .orElse(null);
+        if (event == null) {
+            viewsCache.discard(eventId);
             throw new NotFoundException("Event with id=" + eventId + " was not found");
         }
 
-        Long confirmedRequests = requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED);
-
-        Long currentViews = getViews(eventId);
-
         saveHit("/events/" + eventId, ip);
 
-        Long views = currentViews + 1;
+        Long views = getViews(event, viewsLookup) + 1;
 
-        return EventMapper.toFullDto(event, confirmedRequests, views);
+        return EventMapper.toFullDto(event, views);
+    }
+
+    private List<Event> findPublishedEventsByRelevance(String text, List<Long> categories, Boolean paid,
+                                                       boolean onlyAvailable, LocalDateTime start, LocalDateTime end,
+                                                       Pageable pageable) {
+        List<Long> eventIds = eventRepository.findPublishedEventIdsByRelevance(text, categories == null,
+                categories != null ? categories : List.of(-1L), paid, onlyAvailable, start, end,
+                OffsetPageRequest.of(pageable.getOffset(), pageable.getPageSize()));
+        if (eventIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Event> eventsById = eventRepository.findByIdIn(eventIds).stream()
+                .collect(Collectors.toMap(Event::getId, e -> e));
+        return eventIds.stream()
+                .map(eventsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     private void updateEventFields(Event event, UpdateEventUserRequest request) {
@@ -306,91 +372,40 @@ public class EventServiceImpl implements EventService {
     }
 
     private List<EventShortDto> getEventShortDtos(List<Event> events) {
-        Map<Long, Long> confirmedRequestsMap = getConfirmedRequestsMap(events);
         Map<Long, Long> viewsMap = getViewsMap(events);
 
         return events.stream()
-                .map(e -> EventMapper.toShortDto(e,
-                        confirmedRequestsMap.getOrDefault(e.getId(), 0L),
-                        viewsMap.getOrDefault(e.getId(), 0L)))
+                .map(e -> EventMapper.toShortDto(e, viewsMap.getOrDefault(e.getId(), 0L)))
                 .collect(Collectors.toList());
     }
 
     private List<EventFullDto> getEventFullDtos(List<Event> events) {
-        Map<Long, Long> confirmedRequestsMap = getConfirmedRequestsMap(events);
         Map<Long, Long> viewsMap = getViewsMap(events);
 
         return events.stream()
-                .map(e -> EventMapper.toFullDto(e,
-                        confirmedRequestsMap.getOrDefault(e.getId(), 0L),
-                        viewsMap.getOrDefault(e.getId(), 0L)))
+                .map(e -> EventMapper.toFullDto(e, viewsMap.getOrDefault(e.getId(), 0L)))
                 .collect(Collectors.toList());
     }
 
-    private Map<Long, Long> getConfirmedRequestsMap(List<Event> events) {
-        List<Long> eventIds = events.stream().map(Event::getId).collect(Collectors.toList());
-        Map<Long, Long> map = new HashMap<>();
-        for (Long eventId : eventIds) {
-            map.put(eventId, requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED));
-        }
-        return map;
-    }
-
     private Map<Long, Long> getViewsMap(List<Event> events) {
-        Map<Long, Long> viewsMap = new HashMap<>();
-        if (events.isEmpty()) {
-            return viewsMap;
-        }
-
-        List<String> uris = events.stream()
-                .map(e -> "/events/" + e.getId())
-                .collect(Collectors.toList());
-
-        LocalDateTime start = LocalDateTime.now().minusYears(1);
-        LocalDateTime end = LocalDateTime.now().plusYears(1);
-
+        List<Long> eventIds = events.stream().map(Event::getId).collect(Collectors.toList());
         try {
-            List<ViewStatsDto> stats = statsClient.getStats(start, end, uris, true);
-            for (ViewStatsDto stat : stats) {
-                String uri = stat.getUri();
-                if (uri.startsWith("/events/")) {
-                    try {
-                        Long eventId = Long.parseLong(uri.substring("/events/".length()));
-                        viewsMap.put(eventId, stat.getHits());
-                    } catch (NumberFormatException e) {
-                        log.error("Failed to parse event ID from URI: {}", uri, e);
-                    }
-                }
-            }
+            return viewsCache.getViews(eventIds);
         } catch (Exception e) {
             log.error("Failed to get views statistics", e);
+            return new HashMap<>();
         }
-
-        for (Event event : events) {
-            viewsMap.putIfAbsent(event.getId(), 0L);
-        }
-
-        return viewsMap;
     }
 
-    private Long getViews(Long eventId) {
+    /**
+     * Falls back to the views last synchronized into the event when the lookup fails.
+     */
+    private Long getViews(Event event, CompletableFuture<Long> views) {
         try {
-            String uri = "/events/" + eventId;
-            List<String> uris = Collections.singletonList(uri);
-            LocalDateTime start = LocalDateTime.now().minusYears(1);
-            LocalDateTime end = LocalDateTime.now().plusYears(1);
-            List<ViewStatsDto> stats = statsClient.getStats(start, end, uris, true);
-            if (stats == null || stats.isEmpty()) {
-                return 0L;
-            }
-            return stats.stream()
-                    .filter(s -> uri.equals(s.getUri()))
-                    .findFirst()
-                    .map(ViewStatsDto::getHits)
-                    .orElse(0L);
+            return views.join();
         } catch (Exception e) {
-            log.error("Failed to get views for event ID: {}", eventId, e);
-            return 0L;
+            log.error("Failed to get views for event ID: {}", event.getId(), e);
+            return event.getViews();
         }
     }
 
@@ -401,10 +416,8 @@ public class EventServiceImpl implements EventService {
                 .ip(ip)
                 .timestamp(LocalDateTime.now())
                 .build();
-        try {
-            statsClient.hit(hit);
-        } catch (Exception e) {
-            log.error("Failed to save hit for URI: {}, IP: {}", uri, ip, e);
+        if (!hitBuffer.offer(hit)) {
+            log.warn("Hit buffer is full, dropped hit for URI: {}, IP: {}", uri, ip);
         }
     }
 }
\ No newline at end of file
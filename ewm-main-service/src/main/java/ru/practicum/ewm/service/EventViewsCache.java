@@ -0,0 +1,160 @@
+package ru.practicum.ewm.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.client.StatsClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Event id to unique views cache. Concurrent misses for the same ids share one
+ * stats request, and entries read after the refresh interval are reloaded in the background.
+ * Events the stats server has no hits for are cached with 0 views, so new events do not
+ * cost a stats request per page; a failed load caches nothing and keeps the previous value
+ * on refresh.
+ */
+@Slf4j
+@Component
+public class EventViewsCache implements MeterBinder {
+    private static final String EVENT_URI_PREFIX = "/events/";
+    // Keeps the /stats query string well under the server's default 8 KB header limit.
+    private static final int MAX_URIS_PER_REQUEST = 200;
+
+    private final StatsClient statsClient;
+    private final AsyncLoadingCache<Long, Long> cache;
+
+    public EventViewsCache(StatsClient statsClient,
+                           @Value("${ewm.views-cache.max-size:10000}") long maxSize,
+                           @Value("${ewm.views-cache.expire-after-write-ms:10000}") long expireAfterWriteMs,
+                           @Value("${ewm.views-cache.refresh-after-write-ms:3000}") long refreshAfterWriteMs) {
+        this.statsClient = statsClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .refreshAfterWrite(Duration.ofMillis(refreshAfterWriteMs))
+                .recordStats()
+                .buildAsync(new ViewsLoader());
+    }
+
+    /**
+     * Starts the lookup without waiting for it, so that it can overlap with other work.
+     */
+    public CompletableFuture<Long> getViewsAsync(Long eventId) {
+        return cache.get(eventId);
+    }
+
+    /**
+     * Drops the entry of an id looked up ahead of time that turned out not to be a viewable event.
+     */
+    public void discard(Long eventId) {
+        cache.synchronous().invalidate(eventId);
+    }
+
+    /**
+     * Views of every given event; a failed stats call is thrown.
+     */
+    public Map<Long, Long> getViews(Collection<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return new HashMap<>(cache.getAll(eventIds).join());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache.synchronous(), "eventViews");
+    }
+
+    /**
+     * Reads views straight from the stats server, bypassing the cache. Only events with views
+     * are returned; a failed stats call is thrown.
+     */
+    public Map<Long, Long> loadViews(Collection<? extends Long> eventIds) {
+        Map<Long, Long> views = new HashMap<>();
+        for (List<String> uris : toUriBatches(eventIds)) {
+            views.putAll(toViews(statsClient.fetchStats(statsStart(), statsEnd(), uris, true, false)));
+        }
+        return views;
+    }
+
+    private CompletableFuture<Map<Long, Long>> loadViewsAsync(Collection<? extends Long> eventIds) {
+        List<CompletableFuture<Map<Long, Long>>> loads = toUriBatches(eventIds).stream()
+                .map(uris -> statsClient.getStatsAsync(statsStart(), statsEnd(), uris, true)
+                        .thenApply(EventViewsCache::toViews))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    Map<Long, Long> views = new HashMap<>();
+                    loads.forEach(load -> views.putAll(load.join()));
+                    eventIds.forEach(id -> views.putIfAbsent(id, 0L));
+                    return views;
+                });
+    }
+
+    private static LocalDateTime statsStart() {
+        return LocalDateTime.now().minusYears(1);
+    }
+
+    private static LocalDateTime statsEnd() {
+        return LocalDateTime.now().plusYears(1);
+    }
+
+    private static List<List<String>> toUriBatches(Collection<? extends Long> eventIds) {
+        List<String> uris = eventIds.stream()
+                .map(id -> EVENT_URI_PREFIX + id)
+                .collect(Collectors.toList());
+        List<List<String>> batches = new ArrayList<>();
+        for (int from = 0; from < uris.size(); from += MAX_URIS_PER_REQUEST) {
+            batches.add(uris.subList(from, Math.min(uris.size(), from + MAX_URIS_PER_REQUEST)));
+        }
+        return batches;
+    }
+
+    private static Map<Long, Long> toViews(List<ViewStatsDto> stats) {
+        Map<Long, Long> views = new HashMap<>();
+        for (ViewStatsDto stat : stats) {
+            String uri = stat.getUri();
+            if (uri.startsWith(EVENT_URI_PREFIX)) {
+                try {
+                    views.put(Long.parseLong(uri.substring(EVENT_URI_PREFIX.length())), stat.getHits());
+                } catch (NumberFormatException e) {
+                    log.error("Failed to parse event ID from URI: {}", uri, e);
+                }
+            }
+        }
+        return views;
+    }
+
+    /**
+     * Loads run on the stats client executor rather than the cache's default pool.
+     */
+    private class ViewsLoader implements AsyncCacheLoader<Long, Long> {
+        @Override
+        public CompletableFuture<Long> asyncLoad(Long eventId, Executor executor) {
+            return loadViewsAsync(Set.of(eventId)).thenApply(views -> views.get(eventId));
+        }
+
+        @Override
+        public CompletableFuture<Map<Long, Long>> asyncLoadAll(Set<? extends Long> eventIds, Executor executor) {
+            return loadViewsAsync(eventIds);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.ewm.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.entity.enums.EventState;
+import ru.practicum.ewm.repository.EventRepository;
+
+import java.util.List;
+
+/**
+ * Copies view counts of published events from the stats server into events.views,
+ * so that the public search can sort and page by views in the database. If the stats
+ * server fails, the run stops without writing, so stored counts are never reset.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventViewsSynchronizer {
+    private final EventRepository eventRepository;
+    private final EventViewsCache viewsCache;
+
+    @Value("${ewm.views-sync.batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${ewm.views-sync.interval-ms:60000}",
+            initialDelayString = "${ewm.views-sync.interval-ms:60000}")
+    public void synchronize() {
+        long afterId = 0L;
+        int updated = 0;
+        try {
+            List<Long> eventIds = eventRepository.findIdsByState(EventState.PUBLISHED, afterId, Limit.of(batchSize));
+            while (!eventIds.isEmpty()) {
+                updated += eventRepository.updateViews(viewsCache.loadViews(eventIds));
+                afterId = eventIds.get(eventIds.size() - 1);
+                eventIds = eventRepository.findIdsByState(EventState.PUBLISHED, afterId, Limit.of(batchSize));
+            }
+            log.debug("Synchronized views, {} events changed", updated);
+        } catch (Exception e) {
+            log.error("Failed to synchronize views after event ID: {}", afterId, e);
+        }
+    }
+}
@@ -50,14 +50,16 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
             throw new ConflictException("Request already exists");
         }
 
-        Long confirmedRequests = requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED);
-        if (event.getParticipantLimit() > 0 && confirmedRequests >= event.getParticipantLimit()) {
+        if (event.getParticipantLimit() > 0 && event.getConfirmedRequests() >= event.getParticipantLimit()) {
             throw new ConflictException("The participant limit has been reached");
         }
 
         RequestStatus status;
         if (event.getParticipantLimit() == 0 || !event.getRequestModeration()) {
             status = RequestStatus.CONFIRMED;
+            if (eventRepository.incrementConfirmedRequests(eventId) == 0) {
+                throw new ConflictException("The participant limit has been reached");
+            }
         } else {
             status = RequestStatus.PENDING;
         }
@@ -90,6 +92,9 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
             throw new NotFoundException("Request with id=" + requestId + " was not found");
         }
 
+        if (request.getStatus() == RequestStatus.CONFIRMED) {
+            eventRepository.decrementConfirmedRequests(request.getEvent().getId());
+        }
         request.setStatus(RequestStatus.CANCELED);
         ParticipationRequest saved = requestRepository.save(request);
         return ParticipationRequestMapper.toDto(saved);
@@ -129,34 +134,26 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
             throw new ConflictException("Request must have status PENDING");
         }
 
-        Long confirmedRequests = requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED);
-
         List<ParticipationRequestDto> confirmed = new ArrayList<>();
         List<ParticipationRequestDto> rejected = new ArrayList<>();
 
         if ("CONFIRMED".equals(request.getStatus())) {
+            boolean limitReached = false;
             for (ParticipationRequest req : requests) {
-                if (event.getParticipantLimit() > 0 && confirmedRequests >= event.getParticipantLimit()) {
-                    req.setStatus(RequestStatus.REJECTED);
-                    rejected.add(ParticipationRequestMapper.toDto(req));
-                } else {
+                if (!limitReached && eventRepository.incrementConfirmedRequests(eventId) == 1) {
                     req.setStatus(RequestStatus.CONFIRMED);
                     confirmed.add(ParticipationRequestMapper.toDto(req));
-                    confirmedRequests++;
+                } else {
+                    limitReached = true;
+                    req.setStatus(RequestStatus.REJECTED);
+                    rejected.add(ParticipationRequestMapper.toDto(req));
                 }
             }
 
             requestRepository.saveAllAndFlush(requests);
 
-            if (event.getParticipantLimit() > 0 && confirmedRequests >= event.getParticipantLimit()) {
-                List<Long> processedRequestIds = requests.stream()
-                        .map(ParticipationRequest::getId)
-                        .collect(Collectors.toList());
-
-                List<ParticipationRequest> pendingRequests = requestRepository.findByEventId(eventId).stream()
-                        .filter(r -> r.getStatus() == RequestStatus.PENDING)
-                        .filter(r -> !processedRequestIds.contains(r.getId()))
-                        .collect(Collectors.toList());
+            if (limitReached || eventRepository.findConfirmedRequestsById(eventId) >= event.getParticipantLimit()) {
+                List<ParticipationRequest> pendingRequests = requestRepository.findByEventIdAndStatus(eventId, RequestStatus.PENDING);
 
                 for (ParticipationRequest req : pendingRequests) {
                     req.setStatus(RequestStatus.REJECTED);
@@ -3,6 +3,8 @@ package ru.practicum.ewm.service;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.dto.NewUserRequest;
 import ru.practicum.dto.UserDto;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.PageCursor;
 
 import java.util.List;
 
@@ -11,5 +13,7 @@ public interface UserService {
 
     List<UserDto> getUsers(List<Long> ids, Pageable pageable);
 
+    CursorPage<UserDto> getUsers(List<Long> ids, PageCursor after, int size);
+
     void delete(Long userId);
 }
\ No newline at end of file
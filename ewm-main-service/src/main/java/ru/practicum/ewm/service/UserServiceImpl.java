@@ -10,6 +10,8 @@ import ru.practicum.ewm.entity.User;
 import ru.practicum.ewm.exception.ConflictException;
 import ru.practicum.ewm.exception.NotFoundException;
 import ru.practicum.ewm.mapper.UserMapper;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.PageCursor;
 import ru.practicum.ewm.repository.UserRepository;
 
 import java.util.List;
@@ -45,6 +47,16 @@ public class UserServiceImpl implements UserService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPage<UserDto> getUsers(List<Long> ids, PageCursor after, int size) {
+        long afterId = PageCursor.idAfter(after);
+        List<User> users = (ids == null || ids.isEmpty())
+                ? userRepository.findByIdGreaterThanOrderByIdAsc(afterId, CursorPage.limit(size))
+                : userRepository.findByIdInAndIdGreaterThanOrderByIdAsc(ids, afterId, CursorPage.limit(size));
+        return CursorPage.of(users, size, u -> PageCursor.ofId(u.getId()),
+                page -> page.stream().map(UserMapper::toDto).collect(Collectors.toList()));
+    }
+
     @Override
     @Transactional
     public void delete(Long userId) {
@@ -0,0 +1,65 @@
+-- Schema as it was previously created by Hibernate (ddl-auto=update).
+-- Existing databases are baselined at this version, so it must not change; later columns go into V2+.
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(250) NOT NULL,
+    email VARCHAR(254) NOT NULL,
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS categories (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(50) NOT NULL,
+    CONSTRAINT uk_categories_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS events (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    annotation TEXT NOT NULL,
+    category_id BIGINT NOT NULL REFERENCES categories (id),
+    created_on TIMESTAMP NOT NULL,
+    description TEXT,
+    event_date TIMESTAMP NOT NULL,
+    initiator_id BIGINT NOT NULL REFERENCES users (id),
+    lat REAL NOT NULL,
+    lon REAL NOT NULL,
+    paid BOOLEAN NOT NULL,
+    participant_limit INTEGER NOT NULL,
+    published_on TIMESTAMP,
+    request_moderation BOOLEAN NOT NULL,
+    state VARCHAR(20) NOT NULL,
+    title VARCHAR(120) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS participation_requests (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    created TIMESTAMP NOT NULL,
+    event_id BIGINT NOT NULL REFERENCES events (id),
+    requester_id BIGINT NOT NULL REFERENCES users (id),
+    status VARCHAR(20) NOT NULL,
+    CONSTRAINT uk_participation_requests_event_requester UNIQUE (event_id, requester_id)
+);
+
+CREATE TABLE IF NOT EXISTS compilations (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    pinned BOOLEAN NOT NULL,
+    title VARCHAR(50) NOT NULL,
+    CONSTRAINT uk_compilations_title UNIQUE (title)
+);
+
+CREATE TABLE IF NOT EXISTS compilation_events (
+    compilation_id BIGINT NOT NULL REFERENCES compilations (id),
+    event_id BIGINT NOT NULL REFERENCES events (id),
+    PRIMARY KEY (compilation_id, event_id)
+);
+
+CREATE TABLE IF NOT EXISTS comments (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    text TEXT NOT NULL,
+    event_id BIGINT NOT NULL REFERENCES events (id),
+    author_id BIGINT NOT NULL REFERENCES users (id),
+    created_on TIMESTAMP NOT NULL,
+    updated_on TIMESTAMP,
+    status VARCHAR(20) NOT NULL
+);
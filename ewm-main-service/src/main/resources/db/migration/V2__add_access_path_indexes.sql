@@ -0,0 +1,17 @@
+-- Admin search filters by state and date range.
+CREATE INDEX IF NOT EXISTS idx_events_state_event_date ON events (state, event_date);
+
+-- Public search and its (event_date, id) keyset only ever read published events.
+CREATE INDEX IF NOT EXISTS idx_events_published_event_date ON events (event_date, id) WHERE state = 'PUBLISHED';
+
+CREATE INDEX IF NOT EXISTS idx_events_initiator_id ON events (initiator_id);
+CREATE INDEX IF NOT EXISTS idx_events_category_id ON events (category_id);
+
+CREATE INDEX IF NOT EXISTS idx_participation_requests_event_status ON participation_requests (event_id, status);
+CREATE INDEX IF NOT EXISTS idx_participation_requests_requester_id ON participation_requests (requester_id);
+
+CREATE INDEX IF NOT EXISTS idx_comments_event_status ON comments (event_id, status, id);
+CREATE INDEX IF NOT EXISTS idx_comments_author_id ON comments (author_id, id);
+
+CREATE INDEX IF NOT EXISTS idx_compilation_events_event_id ON compilation_events (event_id);
+CREATE INDEX IF NOT EXISTS idx_compilations_pinned ON compilations (pinned, id);
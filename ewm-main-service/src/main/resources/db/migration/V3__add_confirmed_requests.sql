@@ -0,0 +1,12 @@
+ALTER TABLE events ADD COLUMN IF NOT EXISTS confirmed_requests BIGINT NOT NULL DEFAULT 0;
+
+-- Existing databases already have confirmed requests.
+UPDATE events e
+SET confirmed_requests = c.confirmed
+FROM (
+    SELECT event_id, COUNT(*) AS confirmed
+    FROM participation_requests
+    WHERE status = 'CONFIRMED'
+    GROUP BY event_id
+) c
+WHERE c.event_id = e.id AND e.confirmed_requests <> c.confirmed;
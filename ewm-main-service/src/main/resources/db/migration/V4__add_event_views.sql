@@ -0,0 +1,4 @@
+-- Filled in by EventViewsSynchronizer from the stats server.
+ALTER TABLE events ADD COLUMN IF NOT EXISTS views BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_events_state_views ON events (state, views DESC, id DESC);
@@ -0,0 +1,189 @@
+package ru.practicum.ewm.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import ru.practicum.dto.CompilationDto;
+import ru.practicum.ewm.entity.Category;
+import ru.practicum.ewm.entity.Compilation;
+import ru.practicum.ewm.entity.Event;
+import ru.practicum.ewm.entity.Location;
+import ru.practicum.ewm.entity.User;
+import ru.practicum.ewm.entity.enums.EventState;
+import ru.practicum.ewm.pagination.OffsetPageRequest;
+import ru.practicum.ewm.repository.EventRepository;
+import ru.practicum.stats.client.HitBuffer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Every event on a page has its own category and initiator, so loading them lazily would cost
+ * a statement per event; a page must cost one select, plus one count for offset pages.
+ * A compilation page costs one select of ids and one of the compilations with their events.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class EventListQueryCountTest {
+    private static final int EVENTS = 10;
+    private static final int COMPILATIONS = 5;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private CompilationService compilationService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private HitBuffer hitBuffer;
+
+    @MockBean
+    private EventViewsCache viewsCache;
+
+    private User owner;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        when(hitBuffer.offer(any())).thenReturn(true);
+        owner = entityManager.persist(user(EVENTS));
+        List<Set<Event>> compilationEvents = new ArrayList<>();
+        for (int i = 0; i < COMPILATIONS; i++) {
+            compilationEvents.add(new HashSet<>());
+        }
+        for (int i = 0; i < EVENTS; i++) {
+            Category category = entityManager.persist(Category.builder().name("category " + i).build());
+            Event event = entityManager.persist(event(category, i % 2 == 0 ? owner : entityManager.persist(user(i)), i));
+            compilationEvents.get(i % COMPILATIONS).add(event);
+        }
+        for (int i = 0; i < COMPILATIONS; i++) {
+            entityManager.persist(Compilation.builder()
+                    .events(compilationEvents.get(i))
+                    .pinned(false)
+                    .title("compilation " + i)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void adminEventsPageLoadsCategoriesAndInitiatorsWithTheEvents() {
+        assertThat(eventService.getAdminEvents(null, null, null, null, null, 0, EVENTS,
+                PageRequest.of(0, EVENTS))).hasSize(EVENTS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void adminEventsCursorPageLoadsCategoriesAndInitiatorsWithTheEvents() {
+        assertThat(eventService.getAdminEvents(null, null, null, null, null, null, EVENTS).items())
+                .hasSize(EVENTS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void userEventsPageLoadsCategoriesWithTheEvents() {
+        assertThat(eventService.getUserEvents(owner.getId(), PageRequest.of(0, EVENTS))).hasSize(EVENTS / 2);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void publicEventsPageLoadsCategoriesAndInitiatorsWithTheEvents() {
+        assertThat(eventService.getPublicEvents(null, null, null, null, null, null, "EVENT_DATE",
+                PageRequest.of(0, EVENTS), "127.0.0.1")).hasSize(EVENTS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void publicEventsCursorPageLoadsCategoriesAndInitiatorsWithTheEvents() {
+        assertThat(eventService.getPublicEvents(null, null, null, null, null, null, "EVENT_DATE",
+                null, EVENTS, "127.0.0.1").items()).hasSize(EVENTS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void compilationsPageLoadsEventsWithTheirCategoriesAndInitiators() {
+        assertThat(compilationService.getAll(null, OffsetPageRequest.of(0, COMPILATIONS)))
+                .hasSize(COMPILATIONS)
+                .allSatisfy(EventListQueryCountTest::hasEventsWithDetails);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void compilationsCursorPageLoadsEventsWithTheirCategoriesAndInitiators() {
+        assertThat(compilationService.getAll(null, null, COMPILATIONS).items())
+                .hasSize(COMPILATIONS)
+                .allSatisfy(EventListQueryCountTest::hasEventsWithDetails);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    // The application scans the stats client too, which a JPA slice cannot start.
+    @Configuration
+    @EntityScan(basePackageClasses = Event.class)
+    @EnableJpaRepositories(basePackageClasses = EventRepository.class)
+    @Import({EventServiceImpl.class, CompilationServiceImpl.class})
+    static class Config {
+    }
+
+    private static void hasEventsWithDetails(CompilationDto compilation) {
+        assertThat(compilation.getEvents())
+                .hasSize(EVENTS / COMPILATIONS)
+                .allSatisfy(event -> {
+                    assertThat(event.getCategory().getName()).isNotNull();
+                    assertThat(event.getInitiator().getName()).isNotNull();
+                });
+    }
+
+    private static User user(int i) {
+        return User.builder()
+                .name("user " + i)
+                .email("user" + i + "@example.com")
+                .build();
+    }
+
+    private static Event event(Category category, User initiator, int i) {
+        LocalDateTime now = LocalDateTime.now();
+        return Event.builder()
+                .annotation("annotation of event " + i)
+                .category(category)
+                .createdOn(now)
+                .description("description of event " + i)
+                .eventDate(now.plusDays(1).plusHours(i))
+                .initiator(initiator)
+                .location(new Location(55.75f, 37.62f))
+                .paid(false)
+                .participantLimit(0)
+                .publishedOn(now)
+                .requestModeration(true)
+                .state(EventState.PUBLISHED)
+                .title("event " + i)
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.ewm.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.client.StatsClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventViewsCacheTest {
+    private final StatsClient statsClient = mock(StatsClient.class);
+    private final EventViewsCache viewsCache = new EventViewsCache(statsClient, 100, 60_000, 60_000);
+
+    @Test
+    void unviewedEventsAreCachedWithZeroViews() {
+        stats(new ViewStatsDto("ewm-main-service", "/events/1", 5L));
+
+        assertThat(viewsCache.getViews(List.of(1L, 2L, 3L))).isEqualTo(Map.of(1L, 5L, 2L, 0L, 3L, 0L));
+        assertThat(viewsCache.getViews(List.of(2L, 3L))).isEqualTo(Map.of(2L, 0L, 3L, 0L));
+
+        verify(statsClient, times(1)).getStatsAsync(any(), any(), anyList(), eq(true));
+    }
+
+    @Test
+    void unviewedEventLookupCompletesWithZero() {
+        stats();
+
+        assertThat(viewsCache.getViewsAsync(1L).join()).isZero();
+        assertThat(viewsCache.getViewsAsync(1L).join()).isZero();
+
+        verify(statsClient, times(1)).getStatsAsync(any(), any(), anyList(), eq(true));
+    }
+
+    @Test
+    void discardedEventIsLoadedAgain() {
+        stats();
+        viewsCache.getViewsAsync(1L).join();
+
+        viewsCache.discard(1L);
+        viewsCache.getViewsAsync(1L).join();
+
+        verify(statsClient, times(2)).getStatsAsync(any(), any(), anyList(), eq(true));
+    }
+
+    private void stats(ViewStatsDto... stats) {
+        when(statsClient.getStatsAsync(any(), any(), anyList(), eq(true)))
+                .thenReturn(CompletableFuture.completedFuture(List.of(stats)));
+    }
+}
@@ -0,0 +1,182 @@
+package ru.practicum.stats.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.EndpointHitDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory queue of hits that are sent to the stats server in batches
+ * on a background thread, so that callers never wait for the stats service.
+ */
+@Slf4j
+@Component
+public class HitBuffer implements MeterBinder {
+
+    private final StatsClient statsClient;
+    private final BlockingQueue<EndpointHitDto> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final HitOverflowPolicy overflowPolicy;
+    private final long offerTimeoutMs;
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private final boolean virtualThreads;
+
+    private ScheduledExecutorService flusher;
+
+    public HitBuffer(StatsClient statsClient,
+                     @Value("${stats.client.buffer.capacity:10000}") int capacity,
+                     @Value("${stats.client.buffer.batch-size:100}") int batchSize,
+                     @Value("${stats.client.buffer.flush-interval-ms:1000}") long flushIntervalMs,
+                     @Value("${stats.client.buffer.overflow-policy:DROP_NEWEST}") HitOverflowPolicy overflowPolicy,
+                     @Value("${stats.client.buffer.offer-timeout-ms:50}") long offerTimeoutMs,
+                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (capacity <= 0 || batchSize <= 0 || flushIntervalMs <= 0) {
+            throw new IllegalArgumentException("Hit buffer capacity, batch size and flush interval must be positive");
+        }
+        this.statsClient = statsClient;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.virtualThreads = virtualThreads;
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(virtualThreads
+                ? Thread.ofVirtual().name("stats-hit-flusher").factory()
+                : Thread.ofPlatform().name("stats-hit-flusher").daemon().factory());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(flushIntervalMs, TimeUnit.MILLISECONDS);
+        flushQuietly();
+    }
+
+    public boolean offer(EndpointHitDto hit) {
+        boolean added = enqueue(hit);
+        if (added) {
+            accepted.incrementAndGet();
+            if (queue.size() >= batchSize && !flusher.isShutdown() && flushRequested.compareAndSet(false, true)) {
+                requestFlush();
+            }
+        } else {
+            dropped.incrementAndGet();
+        }
+        return added;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("stats.client.buffer.depth", queue, BlockingQueue::size)
+                .description("Hits waiting to be sent to the stats server")
+                .register(registry);
+        FunctionCounter.builder("stats.client.buffer.accepted", accepted, AtomicLong::get)
+                .register(registry);
+        FunctionCounter.builder("stats.client.buffer.dropped", dropped, AtomicLong::get)
+                .description("Hits discarded because the buffer was full")
+                .register(registry);
+        FunctionCounter.builder("stats.client.buffer.sent", sent, AtomicLong::get)
+                .register(registry);
+        FunctionCounter.builder("stats.client.buffer.failed", failed, AtomicLong::get)
+                .description("Hits lost because the stats server rejected or did not answer a flush")
+                .register(registry);
+    }
+
+    private void requestFlush() {
+        try {
+            flusher.execute(this::flushQuietly);
+        } catch (RejectedExecutionException e) {
+            // The flusher was shut down after the check: stop() sends what is left in the queue.
+            flushRequested.set(false);
+        }
+    }
+
+    private boolean enqueue(EndpointHitDto hit) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    return queue.offer(hit, offerTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            case DROP_OLDEST:
+                while (!queue.offer(hit)) {
+                    if (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                return true;
+            default:
+                return queue.offer(hit);
+        }
+    }
+
+    private void flushQuietly() {
+        flushRequested.set(false);
+        List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            send(batch);
+            batch.clear();
+        }
+    }
+
+    private void send(List<EndpointHitDto> batch) {
+        try {
+            statsClient.hitAll(batch);
+            sent.addAndGet(batch.size());
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            log.warn("Failed to send a batch of {} hits", batch.size(), e);
+        }
+    }
+}
@@ -1,65 +1,281 @@
 package ru.practicum.stats.client;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitBatchResultDto;
 import ru.practicum.dto.ViewStatsDto;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Component
 @RequiredArgsConstructor
 public class StatsClient {
 
     private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
 
     @Value("${stats.server.url:http://localhost:9090}")
     private String serverUrl;
 
+    @Value("${stats.client.async.threads:16}")
+    private int asyncThreads;
+
+    @Value("${stats.client.async.queue-capacity:1000}")
+    private int asyncQueueCapacity;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${stats.client.retry.max-attempts:3}")
+    private int retryAttempts;
+
+    @Value("${stats.client.retry.backoff-ms:200}")
+    private long retryBackoffMs;
+
+    private ExecutorService asyncExecutor;
+    private Semaphore asyncPermits;
+
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private static final DateTimeFormatter FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    /**
+     * With spring.threads.virtual.enabled every async call gets its own virtual thread. Up to
+     * threads + queue-capacity calls are admitted as with the pool, but all of them run at once
+     * and wait for a connection in the HTTP client pool instead of in the executor queue.
+     */
+    @PostConstruct
+    public void start() {
+        if (virtualThreads) {
+            asyncExecutor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("stats-client-async-", 1).factory());
+            asyncPermits = new Semaphore(asyncThreads + asyncQueueCapacity);
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(asyncThreads, asyncThreads,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(asyncQueueCapacity), r -> {
+                    Thread thread = new Thread(r, "stats-client-async-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        asyncExecutor = executor;
+    }
+
+    @PreDestroy
+    public void stop() {
+        asyncExecutor.shutdown();
+    }
+
+    /**
+     * Sends the hit with an idempotency key, generated if missing. Timeouts, 5xx responses and
+     * 409 (the key is still being stored by an earlier attempt) are retried with the same key,
+     * so a hit the server did store is not counted twice.
+     */
     public EndpointHitDto hit(EndpointHitDto hitDto) {
         String url = serverUrl + "/hit";
-        return restTemplate.postForObject(url, hitDto, EndpointHitDto.class);
+        EndpointHitDto keyed = hitDto.getIdempotencyKey() != null ? hitDto : EndpointHitDto.builder()
+                .id(hitDto.getId())
+                .app(hitDto.getApp())
+                .uri(hitDto.getUri())
+                .ip(hitDto.getIp())
+                .timestamp(hitDto.getTimestamp())
+                .idempotencyKey(UUID.randomUUID().toString())
+                .build();
+        return withRetries(() -> restTemplate.postForObject(url, keyed, EndpointHitDto.class));
+    }
+
+    /**
+     * Sends the batch under one idempotency key and retries it like {@link #hit}.
+     */
+    public HitBatchResultDto hitAll(List<EndpointHitDto> hits) {
+        String url = serverUrl + "/hit/batch";
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(IDEMPOTENCY_KEY, UUID.randomUUID().toString());
+        HttpEntity<List<EndpointHitDto>> request = new HttpEntity<>(hits, headers);
+        return withRetries(() -> restTemplate.postForObject(url, request, HitBatchResultDto.class));
     }
 
     public List<ViewStatsDto> getStats(LocalDateTime start,
                                        LocalDateTime end,
                                        List<String> uris,
                                        boolean unique) {
+        return getStats(start, end, uris, unique, false);
+    }
+
+    public List<ViewStatsDto> getStats(LocalDateTime start,
+                                       LocalDateTime end,
+                                       List<String> uris,
+                                       boolean unique,
+                                       boolean approximate) {
 
         try {
-            String encodedStart = URLEncoder.encode(start.format(FORMATTER), StandardCharsets.UTF_8);
-            String encodedEnd = URLEncoder.encode(end.format(FORMATTER), StandardCharsets.UTF_8);
+            return fetchStats(start, end, uris, unique, approximate);
+        } catch (Exception e) {
+            return Collections.emptyList();
+        }
+    }
 
-            StringBuilder urlBuilder = new StringBuilder(serverUrl + "/stats");
-            urlBuilder.append("?start=").append(encodedStart);
-            urlBuilder.append("&end=").append(encodedEnd);
-            urlBuilder.append("&unique=").append(unique);
+    /**
+     * Same as getStats, but errors are thrown, so that a failed call can be told apart from no hits.
+     */
+    public List<ViewStatsDto> fetchStats(LocalDateTime start,
+                                         LocalDateTime end,
+                                         List<String> uris,
+                                         boolean unique,
+                                         boolean approximate) {
+        URI url = statsUri(start, end, uris, unique, approximate, null);
+        ViewStatsDto[] response = restTemplate.getForObject(url, ViewStatsDto[].class);
+        if (response == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(response);
+    }
+
+    /**
+     * Runs {@link #hit} on the client's own executor. When the executor queue is full
+     * the future fails with RejectedExecutionException.
+     */
+    public CompletableFuture<EndpointHitDto> hitAsync(EndpointHitDto hitDto) {
+        return supplyAsync(() -> hit(hitDto));
+    }
+
+    /**
+     * Runs {@link #fetchStats} on the client's own executor, so the caller can do other work
+     * during the round trip. Server errors complete the future exceptionally.
+     */
+    public CompletableFuture<List<ViewStatsDto>> getStatsAsync(LocalDateTime start,
+                                                               LocalDateTime end,
+                                                               List<String> uris,
+                                                               boolean unique) {
+        return supplyAsync(() -> fetchStats(start, end, uris, unique, false));
+    }
+
+    /**
+     * Reads the stats as NDJSON and passes each row to the consumer as it arrives, ordered by hits
+     * descending; with a limit only the top rows are sent. Unlike getStats, errors are thrown,
+     * because the consumer may already have received part of the rows.
+     */
+    public void streamStats(LocalDateTime start,
+                            LocalDateTime end,
+                            List<String> uris,
+                            boolean unique,
+                            boolean approximate,
+                            Integer limit,
+                            Consumer<ViewStatsDto> consumer) {
+        URI url = statsUri(start, end, uris, unique, approximate, limit);
+        restTemplate.execute(url, HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON)),
+                response -> {
+                    try (MappingIterator<ViewStatsDto> stats =
+                                 objectMapper.readerFor(ViewStatsDto.class).readValues(response.getBody())) {
+                        while (stats.hasNext()) {
+                            consumer.accept(stats.next());
+                        }
+                    }
+                    return null;
+                });
+    }
 
-            if (uris != null && !uris.isEmpty()) {
-                for (String uri : uris) {
-                    urlBuilder.append("&uris=").append(uri);
+    private <T> T withRetries(Supplier<T> call) {
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.get();
+            } catch (ResourceAccessException | HttpServerErrorException | HttpClientErrorException.Conflict e) {
+                if (attempt >= retryAttempts || !sleep(backoffMs)) {
+                    throw e;
                 }
             }
+            backoffMs *= 2;
+        }
+    }
 
-            String url = urlBuilder.toString();
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
 
-            ViewStatsDto[] response = restTemplate.getForObject(url, ViewStatsDto[].class);
-            if (response == null) {
-                return Collections.emptyList();
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+        if (asyncPermits == null) {
+            try {
+                return CompletableFuture.supplyAsync(call, asyncExecutor);
+            } catch (RejectedExecutionException e) {
+                return CompletableFuture.failedFuture(e);
             }
-            return Arrays.asList(response);
-        } catch (Exception e) {
-            return Collections.emptyList();
         }
+        if (!asyncPermits.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many stats calls in flight"));
+        }
+        try {
+            CompletableFuture<T> future = CompletableFuture.supplyAsync(call, asyncExecutor);
+            future.whenComplete((result, error) -> asyncPermits.release());
+            return future;
+        } catch (RejectedExecutionException e) {
+            asyncPermits.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private URI statsUri(LocalDateTime start,
+                         LocalDateTime end,
+                         List<String> uris,
+                         boolean unique,
+                         boolean approximate,
+                         Integer limit) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(serverUrl)
+                .path("/stats")
+                .queryParam("start", start.format(FORMATTER))
+                .queryParam("end", end.format(FORMATTER))
+                .queryParam("unique", unique);
+        if (approximate) {
+            builder.queryParam("approximate", true);
+        }
+        if (limit != null) {
+            builder.queryParam("limit", limit);
+        }
+        if (uris != null && !uris.isEmpty()) {
+            builder.queryParam("uris", uris);
+        }
+        return builder.encode().build().toUri();
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,98 @@
 package ru.practicum.stats.client;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * By default the stats server is called over a pooled Apache HttpClient with keep-alive,
+ * timeouts and transparent gzip decompression; its pool is published as httpcomponents.httpclient.pool
+ * metrics. With stats.client.http2=true the JDK HttpClient is used instead, which negotiates HTTP/2
+ * (h2c upgrade over plain http) and multiplexes requests over one connection, but neither
+ * requests compressed responses nor exposes pool metrics.
+ */
 @Configuration
 public class StatsClientConfig {
 
+    @Value("${stats.client.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${stats.client.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+
+    @Bean
+    @ConditionalOnProperty(name = "stats.client.http2", havingValue = "false", matchIfMissing = true)
+    public PoolingHttpClientConnectionManager statsConnectionManager(
+            @Value("${stats.client.pool.max-total:50}") int maxTotal,
+            @Value("${stats.client.pool.max-per-route:50}") int maxPerRoute,
+            @Value("${stats.client.pool.time-to-live-ms:60000}") long timeToLiveMs) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setTimeToLive(TimeValue.ofMilliseconds(timeToLiveMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "stats.client.http2", havingValue = "false", matchIfMissing = true)
+    public CloseableHttpClient statsHttpClient(
+            PoolingHttpClientConnectionManager statsConnectionManager,
+            @Value("${stats.client.pool.acquire-timeout-ms:1000}") long acquireTimeoutMs,
+            @Value("${stats.client.pool.idle-timeout-ms:30000}") long idleTimeoutMs) {
+        return HttpClients.custom()
+                .setConnectionManager(statsConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(acquireTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeoutMs))
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "stats.client.http2", havingValue = "false", matchIfMissing = true)
+    public MeterBinder statsConnectionPoolMetrics(PoolingHttpClientConnectionManager statsConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(statsConnectionManager, "stats-client");
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "stats.client.http2", havingValue = "false", matchIfMissing = true)
+    public RestTemplate restTemplate(CloseableHttpClient statsHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(statsHttpClient));
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    @ConditionalOnProperty(name = "stats.client.http2", havingValue = "true")
+    public RestTemplate http2RestTemplate() {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return new RestTemplate(requestFactory);
     }
 }
@@ -1,31 +1,114 @@
 package ru.practicum.stats.server.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitBatchResultDto;
 import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.dto.ViewStatsSeriesDto;
 import ru.practicum.stats.server.service.StatsService;
+import ru.practicum.stats.server.storage.StatsQuery;
+import ru.practicum.stats.server.timeseries.TimeSeriesQuery;
+import ru.practicum.stats.server.top.TopWindow;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 public class StatsController {
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
 
     private final StatsService statsService;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * The Idempotency-Key header is used when the hit carries no key of its own.
+     */
     @PostMapping("/hit")
-    public ResponseEntity<EndpointHitDto> hit(@RequestBody EndpointHitDto endpointHitDto) {
+    public ResponseEntity<EndpointHitDto> hit(@RequestBody EndpointHitDto endpointHitDto,
+                                              @RequestHeader(value = IDEMPOTENCY_KEY, required = false)
+                                              String idempotencyKey) {
+        if (endpointHitDto.getIdempotencyKey() == null) {
+            endpointHitDto.setIdempotencyKey(idempotencyKey);
+        }
         EndpointHitDto saved = statsService.save(endpointHitDto);
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
+    @PostMapping(value = "/hit/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<HitBatchResultDto> hitBatch(@RequestBody List<EndpointHitDto> hits,
+                                                      @RequestHeader(value = IDEMPOTENCY_KEY, required = false)
+                                                      String batchKey) {
+        HitBatchResultDto result = statsService.saveAll(hits.iterator(), batchKey);
+        return ResponseEntity.status(HttpStatus.CREATED).body(result);
+    }
+
+    @PostMapping(value = "/hit/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<HitBatchResultDto> hitBatchStream(InputStream body,
+                                                            @RequestHeader(value = IDEMPOTENCY_KEY, required = false)
+                                                            String batchKey) throws IOException {
+        try (MappingIterator<EndpointHitDto> hits = objectMapper.readerFor(EndpointHitDto.class).readValues(body)) {
+            HitBatchResultDto result = statsService.saveAll(hits, batchKey);
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        }
+    }
+
+    /**
+     * Most visited uris over the last window (5m, 1h or 24h), served from memory.
+     */
+    @GetMapping("/stats/top")
+    public List<ViewStatsDto> getTop(
+            @RequestParam(defaultValue = "5m")
+            String window,
+            @RequestParam(defaultValue = "10")
+            int n,
+            @RequestParam(required = false)
+            String app
+    ) {
+        return statsService.getTop(TopWindow.of(window), n, app);
+    }
+
+    /**
+     * Hits per step (e.g. 1m, 15m, 1h, 1d) of each app and uri in [from, to). Recent minutes
+     * are served from memory, older ones from storage.
+     */
+    @GetMapping("/stats/timeseries")
+    public List<ViewStatsSeriesDto> getTimeSeries(
+            @RequestParam
+            List<String> uris,
+            @RequestParam
+            @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+            LocalDateTime from,
+            @RequestParam
+            @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+            LocalDateTime to,
+            @RequestParam(defaultValue = "1m")
+            String step
+    ) {
+        return statsService.getTimeSeries(new TimeSeriesQuery(from, to, uris, TimeSeriesQuery.parseStep(step)));
+    }
+
+    /**
+     * Rows are written as they are read, as a JSON array or, for Accept: application/x-ndjson,
+     * one object per line. The query is checked before the response starts. Responses are
+     * written on the sized spring.task.execution pool, which answers 503 once its queue is full.
+     */
     @GetMapping("/stats")
-    public List<ViewStatsDto> getStats(
+    public ResponseEntity<StreamingResponseBody> getStats(
             @RequestParam
             @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
             LocalDateTime start,
@@ -35,11 +118,54 @@ public class StatsController {
             @RequestParam(required = false)
             List<String> uris,
             @RequestParam(required = false, defaultValue = "false")
-            Boolean unique
+            Boolean unique,
+            @RequestParam(required = false, defaultValue = "false")
+            Boolean approximate,
+            @RequestParam(required = false)
+            Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+            List<MediaType> accept
     ) {
-        if (unique == null) {
-            unique = false;
+        StatsQuery query = new StatsQuery(start, end, uris,
+                Boolean.TRUE.equals(unique), Boolean.TRUE.equals(approximate), limit);
+        boolean ndjson = accept != null && accept.stream().anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+        if (ndjson) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> writeNdjson(query, out));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> writeJsonArray(query, out));
+    }
+
+    private void writeJsonArray(StatsQuery query, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartArray();
+            statsService.streamStats(query, stat -> write(generator, stat));
+            generator.writeEndArray();
+        }
+    }
+
+    private void writeNdjson(StatsQuery query, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            statsService.streamStats(query, stat -> {
+                write(generator, stat);
+                try {
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void write(JsonGenerator generator, ViewStatsDto stat) {
+        try {
+            generator.writePOJO(stat);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return statsService.getStats(start, end, uris, unique);
     }
-}
\ No newline at end of file
+}
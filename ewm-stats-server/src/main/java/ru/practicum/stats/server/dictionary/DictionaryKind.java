@@ -0,0 +1,22 @@
+package ru.practicum.stats.server.dictionary;
+
+public enum DictionaryKind {
+    APP("apps", "name"),
+    URI("uris", "uri");
+
+    private final String table;
+    private final String column;
+
+    DictionaryKind(String table, String column) {
+        this.table = table;
+        this.column = column;
+    }
+
+    public String table() {
+        return table;
+    }
+
+    public String column() {
+        return column;
+    }
+}
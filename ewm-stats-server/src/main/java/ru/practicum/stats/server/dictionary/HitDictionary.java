@@ -0,0 +1,139 @@
+package ru.practicum.stats.server.dictionary;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.server.repository.HitCount;
+import ru.practicum.stats.server.repository.HitDictionaryRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory cache of the app and uri dictionaries. Entries are immutable once created,
+ * so the cache never needs invalidation; new entries are published only after their
+ * transaction commits, so the cache never holds an id that was rolled back.
+ */
+@Component
+@RequiredArgsConstructor
+public class HitDictionary {
+    private final HitDictionaryRepository dictionaryRepository;
+
+    private final Map<DictionaryKind, Map<String, Integer>> ids = new EnumMap<>(Map.of(
+            DictionaryKind.APP, new ConcurrentHashMap<>(),
+            DictionaryKind.URI, new ConcurrentHashMap<>()));
+    private final Map<DictionaryKind, Map<Integer, String>> values = new EnumMap<>(Map.of(
+            DictionaryKind.APP, new ConcurrentHashMap<>(),
+            DictionaryKind.URI, new ConcurrentHashMap<>()));
+
+    public int appId(String app) {
+        return getOrCreate(DictionaryKind.APP, app);
+    }
+
+    public int uriId(String uri) {
+        return getOrCreate(DictionaryKind.URI, uri);
+    }
+
+    /**
+     * Ids of the uris that have been seen at least once; unknown uris are left out.
+     */
+    public List<Integer> findUriIds(Collection<String> uris) {
+        return new ArrayList<>(findIds(DictionaryKind.URI, uris).values());
+    }
+
+    /**
+     * Ids of the values that have been seen at least once; unknown values are left out.
+     */
+    public Map<String, Integer> findIds(DictionaryKind kind, Collection<String> values) {
+        Map<String, Integer> cached = ids.get(kind);
+        Map<String, Integer> result = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String value : values) {
+            Integer id = cached.get(value);
+            if (id != null) {
+                result.put(value, id);
+            } else {
+                missing.add(value);
+            }
+        }
+        if (!missing.isEmpty()) {
+            dictionaryRepository.findIds(kind, missing).forEach((value, id) -> {
+                cache(kind, value, id);
+                result.put(value, id);
+            });
+        }
+        return result;
+    }
+
+    public List<ViewStatsDto> toViewStats(List<HitCount> counts) {
+        Set<Integer> appIds = new HashSet<>();
+        Set<Integer> uriIds = new HashSet<>();
+        for (HitCount count : counts) {
+            appIds.add(count.appId());
+            uriIds.add(count.uriId());
+        }
+        Map<Integer, String> apps = resolve(DictionaryKind.APP, appIds);
+        Map<Integer, String> uris = resolve(DictionaryKind.URI, uriIds);
+
+        List<ViewStatsDto> stats = new ArrayList<>(counts.size());
+        for (HitCount count : counts) {
+            stats.add(new ViewStatsDto(apps.get(count.appId()), uris.get(count.uriId()), count.hits()));
+        }
+        return stats;
+    }
+
+    /**
+     * Values of the given ids, loading the ones not cached yet. The map may hold other ids too.
+     */
+    public Map<Integer, String> findValues(DictionaryKind kind, Set<Integer> keys) {
+        return Collections.unmodifiableMap(resolve(kind, keys));
+    }
+
+    private int getOrCreate(DictionaryKind kind, String value) {
+        Integer id = ids.get(kind).get(value);
+        if (id != null) {
+            return id;
+        }
+        int created = dictionaryRepository.getOrCreate(kind, value);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache(kind, value, created);
+                }
+            });
+        } else {
+            cache(kind, value, created);
+        }
+        return created;
+    }
+
+    private Map<Integer, String> resolve(DictionaryKind kind, Set<Integer> keys) {
+        Map<Integer, String> cached = values.get(kind);
+        Set<Integer> missing = new HashSet<>();
+        for (Integer key : keys) {
+            if (!cached.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            dictionaryRepository.findValues(kind, missing).forEach((id, value) -> cache(kind, value, id));
+        }
+        return cached;
+    }
+
+    private void cache(DictionaryKind kind, String value, int id) {
+        ids.get(kind).put(value, id);
+        values.get(kind).put(id, value);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.stats.server.dictionary;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.regex.Pattern;
+
+public final class IpAddresses {
+    private static final Pattern IPV4 = Pattern.compile(
+            "((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\.){3}(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)");
+    private static final Pattern IPV6 = Pattern.compile("[0-9a-fA-F:.]*:[0-9a-fA-F:.]*");
+
+    private IpAddresses() {
+    }
+
+    /**
+     * Accepts only IPv4 and IPv6 literals, so that parsing never falls back to a DNS lookup.
+     */
+    public static byte[] toBytes(String ip) {
+        if (ip == null || !(IPV4.matcher(ip).matches() || IPV6.matcher(ip).matches())) {
+            throw new IllegalArgumentException("Invalid ip address: " + ip);
+        }
+        try {
+            return InetAddress.getByName(ip).getAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid ip address: " + ip);
+        }
+    }
+
+    /**
+     * The canonical text of the address, so that equal addresses written differently compare equal.
+     */
+    public static String normalize(String ip) {
+        try {
+            return InetAddress.getByAddress(toBytes(ip)).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid ip address: " + ip);
+        }
+    }
+}
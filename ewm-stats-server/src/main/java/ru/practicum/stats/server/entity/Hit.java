@@ -1,11 +1,13 @@
 package ru.practicum.stats.server.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Table;
 import lombok.Data;
 import jakarta.persistence.Id;
+import org.hibernate.annotations.ColumnTransformer;
 
 import java.time.LocalDateTime;
 
@@ -17,11 +19,15 @@ public class Hit {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    private String app;
+    @Column(name = "app_id")
+    private Integer appId;
 
-    private String uri;
+    @Column(name = "uri_id")
+    private Integer uriId;
 
+    @Column(columnDefinition = "inet")
+    @ColumnTransformer(read = "host(ip)", write = "?::inet")
     private String ip;
 
     private LocalDateTime timestamp;
-}
\ No newline at end of file
+}
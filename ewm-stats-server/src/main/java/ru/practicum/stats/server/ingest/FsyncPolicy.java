@@ -0,0 +1,7 @@
+package ru.practicum.stats.server.ingest;
+
+public enum FsyncPolicy {
+    ALWAYS,
+    INTERVAL,
+    NEVER
+}
@@ -0,0 +1,160 @@
+package ru.practicum.stats.server.ingest;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.server.sketch.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Idempotency keys seen over the last stats.ingest.dedup.window-ms, kept in memory as 64-bit
+ * hashes in time buckets that are dropped as the window slides, so a retry is recognised
+ * without a database round trip. A key is pending from registration until its hits are
+ * stored, and only then remembered for the window. Two keys share a hash with probability
+ * about n^2 / 2^65 for n keys in the window. Keys are spread over lock stripes; once a
+ * stripe's current bucket is full, completed keys are not remembered and count as overflow.
+ */
+@Component
+public class HitDeduplicator implements MeterBinder {
+    private static final int STRIPES = 16;
+    private static final int BUCKETS = 10;
+
+    private final boolean enabled;
+    private final long bucketMs;
+    private final int maxKeysPerBucket;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicLong overflow = new AtomicLong();
+
+    public HitDeduplicator(@Value("${stats.ingest.dedup.enabled:true}") boolean enabled,
+                           @Value("${stats.ingest.dedup.window-ms:600000}") long windowMs,
+                           @Value("${stats.ingest.dedup.max-keys:1000000}") int maxKeys) {
+        if (windowMs < BUCKETS || maxKeys <= 0) {
+            throw new IllegalArgumentException("Dedup window and key limit must be positive");
+        }
+        this.enabled = enabled;
+        this.bucketMs = windowMs / BUCKETS;
+        this.maxKeysPerBucket = Math.max(1, maxKeys / (STRIPES * BUCKETS));
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * A {@link KeyRegistration#NEW} key must later be completed or forgotten. Null keys are
+     * always new and need neither.
+     */
+    public KeyRegistration register(String key) {
+        if (!enabled || key == null) {
+            return KeyRegistration.NEW;
+        }
+        long hash = hash(key);
+        return stripe(hash).register(hash, System.currentTimeMillis() / bucketMs);
+    }
+
+    /**
+     * Remembers a pending key for the window once its hits are stored.
+     */
+    public void complete(String key) {
+        if (!enabled || key == null) {
+            return;
+        }
+        long hash = hash(key);
+        stripe(hash).complete(hash, System.currentTimeMillis() / bucketMs);
+    }
+
+    /**
+     * Drops a pending key whose hits were not stored, so that a retry is accepted.
+     */
+    public void forget(String key) {
+        if (!enabled || key == null) {
+            return;
+        }
+        long hash = hash(key);
+        stripe(hash).forget(hash);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("stats.ingest.dedup.overflow", overflow, AtomicLong::get)
+                .description("Idempotency keys not remembered because the dedup window was full")
+                .register(registry);
+    }
+
+    private Stripe stripe(long hash) {
+        return stripes[(int) (hash >>> 60) & (STRIPES - 1)];
+    }
+
+    private static long hash(String key) {
+        long hash = Hashing.hash64(key.getBytes(StandardCharsets.UTF_8));
+        return hash == 0 ? 1 : hash;
+    }
+
+    private final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        // One spare bucket, so the window always covers BUCKETS full buckets.
+        private final LongHashSet[] buckets = new LongHashSet[BUCKETS + 1];
+        private final long[] bucketIds = new long[BUCKETS + 1];
+        private final LongHashSet pending = new LongHashSet();
+
+        Stripe() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongHashSet();
+            }
+            Arrays.fill(bucketIds, Long.MIN_VALUE);
+        }
+
+        KeyRegistration register(long hash, long bucketId) {
+            lock.lock();
+            try {
+                if (pending.contains(hash)) {
+                    return KeyRegistration.PENDING;
+                }
+                for (int i = 0; i < buckets.length; i++) {
+                    if (bucketIds[i] > bucketId - buckets.length && buckets[i].contains(hash)) {
+                        return KeyRegistration.DUPLICATE;
+                    }
+                }
+                pending.add(hash);
+                return KeyRegistration.NEW;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void complete(long hash, long bucketId) {
+            lock.lock();
+            try {
+                if (!pending.remove(hash)) {
+                    return;
+                }
+                int slot = (int) Math.floorMod(bucketId, (long) buckets.length);
+                if (bucketIds[slot] != bucketId) {
+                    buckets[slot].clear();
+                    bucketIds[slot] = bucketId;
+                }
+                if (buckets[slot].size() >= maxKeysPerBucket) {
+                    overflow.incrementAndGet();
+                } else {
+                    buckets[slot].add(hash);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void forget(long hash) {
+            lock.lock();
+            try {
+                pending.remove(hash);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package ru.practicum.stats.server.ingest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.EndpointHitDto;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only NDJSON log of buffered hits, split into segments. A segment is closed when the
+ * buffer is drained and deleted once the drained hits are committed, so the files on disk always
+ * cover every hit that has been acknowledged but not yet written to the database.
+ */
+@Slf4j
+@Component
+public class HitJournal {
+    private static final String SEGMENT_PREFIX = "hits-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Path> closedSegments = new ArrayList<>();
+    private long nextSegment;
+    private Path currentSegment;
+    private FileChannel channel;
+    private boolean dirty;
+
+    public HitJournal(ObjectMapper objectMapper,
+                      @Value("${stats.ingest.journal.enabled:false}") boolean enabled,
+                      @Value("${stats.ingest.journal.dir:data/hit-journal}") Path directory,
+                      @Value("${stats.ingest.journal.fsync:INTERVAL}") FsyncPolicy fsyncPolicy) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    /**
+     * Reads the hits left by a previous run. Their segments are kept until the next {@link #delete}.
+     */
+    public List<EndpointHitDto> replay() {
+        List<EndpointHitDto> hits = new ArrayList<>();
+        if (!enabled) {
+            return hits;
+        }
+        lock.lock();
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments;
+            try (Stream<Path> files = Files.list(directory)) {
+                segments = files.filter(HitJournal::isSegment).sorted().toList();
+            }
+            for (Path segment : segments) {
+                readSegment(segment, hits);
+                closedSegments.add(segment);
+                nextSegment = Math.max(nextSegment, segmentNumber(segment) + 1);
+            }
+            if (!hits.isEmpty()) {
+                log.info("Replayed {} hits from {} journal segments", hits.size(), segments.size());
+            }
+            return hits;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay hit journal in " + directory, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void append(List<EndpointHitDto> hits) {
+        if (!enabled || hits.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(hits.size() * 128);
+        try {
+            for (EndpointHitDto hit : hits) {
+                out.write(objectMapper.writeValueAsBytes(hit));
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize hits for the journal", e);
+        }
+        lock.lock();
+        try {
+            if (channel == null) {
+                currentSegment = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, nextSegment++,
+                        SEGMENT_SUFFIX));
+                channel = FileChannel.open(currentSegment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                channel.force(false);
+            } else {
+                dirty = true;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append hits to the journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void sync() {
+        lock.lock();
+        try {
+            if (channel != null && dirty) {
+                channel.force(false);
+                dirty = false;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to sync hit journal segment {}", currentSegment, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the current segment and returns every segment whose hits have not been deleted yet.
+     */
+    public List<Path> rotate() {
+        lock.lock();
+        try {
+            if (channel != null) {
+                if (fsyncPolicy != FsyncPolicy.NEVER && dirty) {
+                    channel.force(false);
+                }
+                channel.close();
+                closedSegments.add(currentSegment);
+                channel = null;
+                currentSegment = null;
+                dirty = false;
+            }
+            return new ArrayList<>(closedSegments);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close hit journal segment " + currentSegment, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void delete(List<Path> segments) {
+        lock.lock();
+        try {
+            for (Path segment : segments) {
+                Files.deleteIfExists(segment);
+                closedSegments.remove(segment);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete hit journal segments {}", segments, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void readSegment(Path segment, List<EndpointHitDto> hits) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    hits.add(objectMapper.readValue(line, EndpointHitDto.class));
+                } catch (JsonProcessingException e) {
+                    // A torn last record is expected after a crash with a relaxed fsync policy.
+                    log.warn("Skipping unreadable record in hit journal segment {}", segment);
+                }
+            }
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
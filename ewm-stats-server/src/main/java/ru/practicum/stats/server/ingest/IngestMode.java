@@ -0,0 +1,12 @@
+package ru.practicum.stats.server.ingest;
+
+public enum IngestMode {
+    /**
+     * Every request is written to the database before it is acknowledged.
+     */
+    SYNC,
+    /**
+     * Requests are acknowledged once buffered (and journaled, if enabled) and written in the background.
+     */
+    WRITE_BEHIND
+}
@@ -0,0 +1,16 @@
+package ru.practicum.stats.server.ingest;
+
+public enum KeyRegistration {
+    /**
+     * The key is new and now pending until its hits are stored or the attempt fails.
+     */
+    NEW,
+    /**
+     * The hits of the key were stored within the window.
+     */
+    DUPLICATE,
+    /**
+     * Another request with the key is still storing its hits.
+     */
+    PENDING
+}
@@ -0,0 +1,91 @@
+package ru.practicum.stats.server.ingest;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing set of non-zero longs with linear probing. Not thread-safe.
+ */
+final class LongHashSet {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] values = new long[INITIAL_CAPACITY];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(long value) {
+        return values[slot(values, value)] == value;
+    }
+
+    boolean add(long value) {
+        int slot = slot(values, value);
+        if (values[slot] == value) {
+            return false;
+        }
+        values[slot] = value;
+        if (++size * 2 > values.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Removes the value and shifts back the entries probed past it, so lookups need no tombstones.
+     */
+    boolean remove(long value) {
+        int mask = values.length - 1;
+        int slot = slot(values, value);
+        if (values[slot] != value) {
+            return false;
+        }
+        values[slot] = 0;
+        size--;
+        int next = (slot + 1) & mask;
+        while (values[next] != 0) {
+            long moved = values[next];
+            int home = home(moved, mask);
+            // The entry stays unless the freed slot lies cyclically between its home and its position.
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                values[slot] = moved;
+                values[next] = 0;
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        return true;
+    }
+
+    void clear() {
+        size = 0;
+        if (values.length > INITIAL_CAPACITY) {
+            values = new long[INITIAL_CAPACITY];
+        } else {
+            Arrays.fill(values, 0);
+        }
+    }
+
+    private void grow() {
+        long[] old = values;
+        values = new long[old.length * 2];
+        for (long value : old) {
+            if (value != 0) {
+                values[slot(values, value)] = value;
+            }
+        }
+    }
+
+    private static int slot(long[] values, long value) {
+        int mask = values.length - 1;
+        int slot = home(value, mask);
+        while (values[slot] != 0 && values[slot] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int home(long value, int mask) {
+        return (int) (value ^ (value >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,238 @@
+package ru.practicum.stats.server.ingest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.stats.server.metrics.StatsMetrics;
+import ru.practicum.stats.server.storage.HitStorage;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded buffer of acknowledged hits that a background thread writes to the database
+ * in one transaction per flush. When the buffer is full the caller flushes it itself,
+ * so ingestion slows down to the database speed instead of losing hits. Reads see the
+ * hits not written yet through {@link #readWithUnwritten} instead of flushing them.
+ */
+@Slf4j
+@Component
+public class WriteBehindHitBuffer implements MeterBinder {
+    private final HitStorage storage;
+    private final HitJournal journal;
+    private final StatsMetrics metrics;
+    private final boolean enabled;
+    private final int capacity;
+    private final long flushIntervalMs;
+    private final long fsyncIntervalMs;
+    private final boolean virtualThreads;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ReentrantReadWriteLock storageGate = new ReentrantReadWriteLock(true);
+    private final ArrayDeque<EndpointHitDto> buffer;
+    private List<EndpointHitDto> inFlight = List.of();
+
+    private ScheduledExecutorService flusher;
+
+    public WriteBehindHitBuffer(HitStorage storage,
+                                HitJournal journal,
+                                StatsMetrics metrics,
+                                @Value("${stats.ingest.mode:SYNC}") IngestMode mode,
+                                @Value("${stats.ingest.buffer.capacity:100000}") int capacity,
+                                @Value("${stats.ingest.buffer.flush-interval-ms:1000}") long flushIntervalMs,
+                                @Value("${stats.ingest.journal.fsync-interval-ms:1000}") long fsyncIntervalMs,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (capacity <= 0 || flushIntervalMs <= 0 || fsyncIntervalMs <= 0) {
+            throw new IllegalArgumentException("Ingest buffer capacity, flush and fsync intervals must be positive");
+        }
+        this.storage = storage;
+        this.journal = journal;
+        this.metrics = metrics;
+        this.enabled = mode == IngestMode.WRITE_BEHIND;
+        this.capacity = capacity;
+        this.flushIntervalMs = flushIntervalMs;
+        this.fsyncIntervalMs = fsyncIntervalMs;
+        this.virtualThreads = virtualThreads;
+        this.buffer = new ArrayDeque<>(enabled ? capacity : 0);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        buffer.addAll(journal.replay());
+        flusher = Executors.newSingleThreadScheduledExecutor(virtualThreads
+                ? Thread.ofVirtual().name("stats-hit-writer").factory()
+                : Thread.ofPlatform().name("stats-hit-writer").daemon().factory());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (journal.isEnabled() && journal.getFsyncPolicy() == FsyncPolicy.INTERVAL) {
+            flusher.scheduleWithFixedDelay(journal::sync, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(flushIntervalMs, TimeUnit.MILLISECONDS);
+        flushQuietly();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getBufferedCount() {
+        appendLock.lock();
+        try {
+            return buffer.size() + inFlight.size();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("stats.ingest.buffer.depth", this, WriteBehindHitBuffer::getBufferedCount)
+                .description("Acknowledged hits not yet written to storage")
+                .register(registry);
+    }
+
+    /**
+     * Appends all the hits or none of them: when they do not fit, the buffer is flushed first,
+     * and a failed flush leaves the hits out. Hits that do not fit even an empty buffer are
+     * appended to it anyway.
+     */
+    public void append(List<EndpointHitDto> hits) {
+        while (true) {
+            appendLock.lock();
+            try {
+                if (buffer.isEmpty() || buffer.size() + hits.size() <= capacity) {
+                    journal.append(hits);
+                    buffer.addAll(hits);
+                    return;
+                }
+            } finally {
+                appendLock.unlock();
+            }
+            flush();
+        }
+    }
+
+    /**
+     * Passes the hits not written to storage yet that match the filter, buffered ones and those
+     * of a flush in progress, to the read. No flush commits while the read runs, so the read does
+     * not find any of them in storage too.
+     */
+    public <T> T readWithUnwritten(Predicate<EndpointHitDto> filter, Function<List<EndpointHitDto>, T> read) {
+        storageGate.readLock().lock();
+        try {
+            List<EndpointHitDto> unwritten = new ArrayList<>();
+            appendLock.lock();
+            try {
+                for (EndpointHitDto hit : inFlight) {
+                    if (filter.test(hit)) {
+                        unwritten.add(hit);
+                    }
+                }
+                for (EndpointHitDto hit : buffer) {
+                    if (filter.test(hit)) {
+                        unwritten.add(hit);
+                    }
+                }
+            } finally {
+                appendLock.unlock();
+            }
+            return read.apply(unwritten);
+        } finally {
+            storageGate.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes every hit appended before the call. On failure the hits go back to the head
+     * of the buffer and their journal segments are kept for the next attempt.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<EndpointHitDto> pending;
+            List<Path> segments;
+            appendLock.lock();
+            try {
+                if (buffer.isEmpty()) {
+                    return;
+                }
+                segments = journal.rotate();
+                pending = new ArrayList<>(buffer);
+                buffer.clear();
+                inFlight = pending;
+            } finally {
+                appendLock.unlock();
+            }
+            storageGate.writeLock().lock();
+            try {
+                metrics.timeWrite("flush", () -> storage.saveAll(pending.iterator()));
+                clearInFlight();
+            } catch (RuntimeException e) {
+                requeue(pending);
+                throw e;
+            } finally {
+                storageGate.writeLock().unlock();
+            }
+            journal.delete(segments);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Failed to write buffered hits, will retry", e);
+        }
+    }
+
+    private void clearInFlight() {
+        appendLock.lock();
+        try {
+            inFlight = List.of();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void requeue(List<EndpointHitDto> hits) {
+        appendLock.lock();
+        try {
+            Iterator<EndpointHitDto> reversed = new ArrayDeque<>(hits).descendingIterator();
+            while (reversed.hasNext()) {
+                buffer.addFirst(reversed.next());
+            }
+            inFlight = List.of();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+}
@@ -8,18 +8,16 @@ import ru.practicum.stats.server.entity.Hit;
 public class HitMapper {
     public Hit toEntity(EndpointHitDto dto) {
         Hit hit = new Hit();
-        hit.setApp(dto.getApp());
-        hit.setUri(dto.getUri());
         hit.setIp(dto.getIp());
         hit.setTimestamp(dto.getTimestamp());
         return hit;
     }
 
-    public EndpointHitDto toDto(Hit hit) {
+    public EndpointHitDto toDto(Hit hit, String app, String uri) {
         return EndpointHitDto.builder()
                 .id(hit.getId())
-                .app(hit.getApp())
-                .uri(hit.getUri())
+                .app(app)
+                .uri(uri)
                 .ip(hit.getIp())
                 .timestamp(hit.getTimestamp())
                 .build();
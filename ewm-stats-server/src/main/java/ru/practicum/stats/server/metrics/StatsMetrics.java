@@ -0,0 +1,149 @@
+package ru.practicum.stats.server.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.server.storage.StatsQuery;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Ingest and query meters of the stats server. Query meters are tagged by shape (mode,
+ * uris filter, window length) and storage engine, so latency can be compared per variant.
+ */
+@Component
+public class StatsMetrics {
+    private static final Duration[] WINDOWS = {
+            Duration.ofHours(1), Duration.ofDays(1), Duration.ofDays(7), Duration.ofDays(30)
+    };
+    private static final String[] WINDOW_LABELS = {"1h", "1d", "7d", "30d", "longer"};
+
+    private final MeterRegistry registry;
+    private final String engine;
+    private final Counter singleHits;
+    private final Counter batchHits;
+    private final Counter rejectedHits;
+    private final Counter duplicateHits;
+    private final DistributionSummary batchSize;
+
+    public StatsMetrics(MeterRegistry registry,
+                        @Value("${stats.storage.engine:jdbc}") String engine) {
+        this.registry = registry;
+        this.engine = engine;
+        this.singleHits = ingestCounter("single");
+        this.batchHits = ingestCounter("batch");
+        this.rejectedHits = Counter.builder("stats.ingest.rejected")
+                .description("Hits rejected by validation")
+                .register(registry);
+        this.duplicateHits = Counter.builder("stats.ingest.duplicates")
+                .description("Hits skipped because their idempotency key was seen before")
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("stats.ingest.batch.size")
+                .description("Hits per batch request")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1_000_000.0)
+                .register(registry);
+    }
+
+    public void hitAccepted() {
+        singleHits.increment();
+    }
+
+    public void batchAccepted(long hits) {
+        batchHits.increment(hits);
+        batchSize.record(hits);
+    }
+
+    public void hitRejected() {
+        rejectedHits.increment();
+    }
+
+    public void hitsDeduplicated(long hits) {
+        if (hits > 0) {
+            duplicateHits.increment(hits);
+        }
+    }
+
+    /**
+     * Times a storage write. The operation is save, saveAll or flush (write-behind).
+     */
+    public <T> T timeWrite(String operation, Supplier<T> write) {
+        return Timer.builder("stats.storage.write")
+                .description("Time to write hits to storage")
+                .tags("engine", engine, "operation", operation)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry)
+                .record(write);
+    }
+
+    /**
+     * Records a /stats query that returned the given number of rows, including the time
+     * to write them to the client.
+     */
+    public void recordQuery(StatsQuery query, long rows, long durationNanos, String outcome) {
+        Tags tags = Tags.of(
+                "engine", engine,
+                "mode", mode(query),
+                "uris", query.hasUris() ? "filtered" : "all",
+                "window", window(query));
+        Timer.builder("stats.query")
+                .description("Time to answer a /stats query")
+                .tags(tags)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMinutes(1))
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("stats.query.rows")
+                .description("Rows returned by a /stats query")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(10_000_000.0)
+                .register(registry)
+                .record(rows);
+    }
+
+    /**
+     * Records a /stats/timeseries query; the source is memory, storage or mixed.
+     */
+    public void recordTimeSeries(String source, long durationNanos) {
+        Timer.builder("stats.timeseries")
+                .description("Time to answer a /stats/timeseries query")
+                .tags("engine", engine, "source", source)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMinutes(1))
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Counter ingestCounter(String kind) {
+        return Counter.builder("stats.ingest.hits")
+                .description("Hits accepted for storage")
+                .tag("kind", kind)
+                .register(registry);
+    }
+
+    private static String mode(StatsQuery query) {
+        if (!query.unique()) {
+            return "count";
+        }
+        return query.approximate() ? "approximate_unique" : "unique";
+    }
+
+    private static String window(StatsQuery query) {
+        Duration length = Duration.between(query.start(), query.end());
+        for (int i = 0; i < WINDOWS.length; i++) {
+            if (length.compareTo(WINDOWS[i]) <= 0) {
+                return WINDOW_LABELS[i];
+            }
+        }
+        return WINDOW_LABELS[WINDOWS.length];
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.stats.server.migration;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.server.entity.Hit;
+import ru.practicum.stats.server.repository.HitSketchRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the sketches of hits stored before sketches were maintained on write. HyperLogLog
+ * sketches are built in Java, so unlike the rollup backfill this cannot be a SQL migration.
+ * Sketch updates merge, so hits that already have sketches are not counted twice.
+ */
+@Component
+public class BackfillHitSketchesMigration implements JavaMigration {
+    private static final int CHUNK_SIZE = 10_000;
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("5");
+    }
+
+    @Override
+    public String getDescription() {
+        return "backfill hit sketches";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate template = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        template.setFetchSize(CHUNK_SIZE);
+        HitSketchRepository sketchRepository = new HitSketchRepository(new NamedParameterJdbcTemplate(template));
+        List<Hit> chunk = new ArrayList<>(CHUNK_SIZE);
+        template.query("SELECT app_id, uri_id, host(ip) AS ip, timestamp FROM hits", rs -> {
+            Hit hit = new Hit();
+            hit.setAppId(rs.getInt("app_id"));
+            hit.setUriId(rs.getInt("uri_id"));
+            hit.setIp(rs.getString("ip"));
+            hit.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+            chunk.add(hit);
+            if (chunk.size() == CHUNK_SIZE) {
+                sketchRepository.update(chunk);
+                chunk.clear();
+            }
+        });
+        sketchRepository.update(chunk);
+    }
+}
@@ -0,0 +1,132 @@
+package ru.practicum.stats.server.partition;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.server.repository.HitAggregationQueueRepository;
+import ru.practicum.stats.server.repository.HitPartitionRepository;
+import ru.practicum.stats.server.repository.HitRollupRepository;
+import ru.practicum.stats.server.repository.HitSketchRepository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps monthly partitions of the hits table: creates the current month and
+ * {@code stats.partition.months-ahead} following months, and, when
+ * {@code stats.retention.months} is positive, detaches or drops partitions of months
+ * older than that many months before the current one. Rollups, sketches and queued hits
+ * of those months are deleted in the same step, so aggregate queries agree with raw ones.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.storage.engine", havingValue = "jdbc", matchIfMissing = true)
+public class HitPartitionManager {
+    private static final Pattern PARTITION_NAME = Pattern.compile("hits_(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'hits_'yyyy_MM");
+
+    private final HitPartitionRepository partitionRepository;
+    private final HitRollupRepository rollupRepository;
+    private final HitSketchRepository sketchRepository;
+    private final HitAggregationQueueRepository queueRepository;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final HitRetentionMode retentionMode;
+
+    public HitPartitionManager(HitPartitionRepository partitionRepository,
+                               HitRollupRepository rollupRepository,
+                               HitSketchRepository sketchRepository,
+                               HitAggregationQueueRepository queueRepository,
+                               @Value("${stats.partition.enabled:true}") boolean enabled,
+                               @Value("${stats.partition.months-ahead:2}") int monthsAhead,
+                               @Value("${stats.retention.months:0}") int retentionMonths,
+                               @Value("${stats.retention.mode:DETACH}") HitRetentionMode retentionMode) {
+        if (monthsAhead < 0 || retentionMonths < 0) {
+            throw new IllegalArgumentException("Partition months ahead and retention months must not be negative");
+        }
+        this.partitionRepository = partitionRepository;
+        this.rollupRepository = rollupRepository;
+        this.sketchRepository = sketchRepository;
+        this.queueRepository = queueRepository;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.retentionMode = retentionMode;
+    }
+
+    // Runs before the web server accepts hits, so that they do not pile up in the default partition.
+    @PostConstruct
+    public void init() {
+        maintainQuietly();
+    }
+
+    @Scheduled(initialDelayString = "${stats.partition.maintenance-interval-ms:3600000}",
+            fixedDelayString = "${stats.partition.maintenance-interval-ms:3600000}")
+    public void maintainQuietly() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            maintain(YearMonth.now());
+        } catch (Exception e) {
+            log.error("Failed to maintain hits partitions", e);
+        }
+    }
+
+    void maintain(YearMonth current) {
+        if (!partitionRepository.isPartitioned()) {
+            log.warn("Table hits is not partitioned, partition maintenance is skipped");
+            return;
+        }
+        Map<YearMonth, String> partitions = new HashMap<>();
+        for (String name : partitionRepository.findPartitionNames()) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                partitions.put(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))),
+                        name);
+            }
+        }
+
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!partitions.containsKey(month)) {
+                String name = NAME_FORMAT.format(month);
+                partitionRepository.createPartition(name, month.atDay(1).atStartOfDay(),
+                        month.plusMonths(1).atDay(1).atStartOfDay());
+                log.info("Created hits partition {}", name);
+            }
+        }
+
+        if (retentionMonths == 0) {
+            return;
+        }
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        partitions.forEach((month, name) -> {
+            if (month.isBefore(oldestKept)) {
+                if (retentionMode == HitRetentionMode.DROP) {
+                    partitionRepository.dropPartition(name);
+                } else {
+                    partitionRepository.detachPartition(name);
+                }
+                log.info("Expired hits partition {} ({})", name, retentionMode);
+            }
+        });
+
+        LocalDateTime cutoff = oldestKept.atDay(1).atStartOfDay();
+        queueRepository.deleteBefore(cutoff);
+        int rollups = rollupRepository.deleteBefore(cutoff);
+        int sketches = sketchRepository.deleteBefore(cutoff);
+        if (rollups > 0 || sketches > 0) {
+            log.info("Expired {} rollup and {} sketch rows before {}", rollups, sketches, cutoff);
+        }
+    }
+}
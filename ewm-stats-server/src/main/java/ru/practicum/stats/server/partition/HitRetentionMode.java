@@ -0,0 +1,6 @@
+package ru.practicum.stats.server.partition;
+
+public enum HitRetentionMode {
+    DETACH,
+    DROP
+}
@@ -0,0 +1,6 @@
+package ru.practicum.stats.server.repository;
+
+import java.time.LocalDateTime;
+
+public record BucketCount(int appId, int uriId, LocalDateTime bucketStart, long hits) {
+}
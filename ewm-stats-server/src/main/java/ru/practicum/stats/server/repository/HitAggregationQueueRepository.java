@@ -0,0 +1,59 @@
+package ru.practicum.stats.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.server.entity.Hit;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Stored hits that are not folded into the rollups and sketches yet. Appending takes no lock
+ * that another writer waits for; aggregate rows are only locked by the batch that drains the queue.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitAggregationQueueRepository {
+    private static final String INSERT_SQL = "INSERT INTO hit_aggregation_queue (app_id, uri_id, ip, timestamp) " +
+            "VALUES (?, ?, ?::inet, ?)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void enqueue(List<Hit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_SQL, hits, hits.size(), (ps, hit) -> {
+            ps.setInt(1, hit.getAppId());
+            ps.setInt(2, hit.getUriId());
+            ps.setString(3, hit.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+    }
+
+    /**
+     * Must run in a transaction: removes up to limit of the oldest queued hits and returns them,
+     * so that they are folded in by the same transaction. Rows taken by a concurrent batch are skipped.
+     */
+    public List<Hit> take(int limit) {
+        return jdbcTemplate.query("DELETE FROM hit_aggregation_queue WHERE id IN (" +
+                        "SELECT id FROM hit_aggregation_queue ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+                        "RETURNING app_id, uri_id, host(ip) AS ip, timestamp",
+                new MapSqlParameterSource("limit", limit), (rs, rowNum) -> {
+                    Hit hit = new Hit();
+                    hit.setAppId(rs.getInt("app_id"));
+                    hit.setUriId(rs.getInt("uri_id"));
+                    hit.setIp(rs.getString("ip"));
+                    hit.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+                    return hit;
+                });
+    }
+
+    public int deleteBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.getJdbcTemplate().update("DELETE FROM hit_aggregation_queue WHERE timestamp < ?",
+                Timestamp.valueOf(cutoff));
+    }
+}
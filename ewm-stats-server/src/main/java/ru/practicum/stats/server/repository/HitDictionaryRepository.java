@@ -0,0 +1,55 @@
+package ru.practicum.stats.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.server.dictionary.DictionaryKind;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class HitDictionaryRepository {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public int getOrCreate(DictionaryKind kind, String value) {
+        MapSqlParameterSource params = new MapSqlParameterSource("value", value);
+        String select = "SELECT id FROM " + kind.table() + " WHERE " + kind.column() + " = :value";
+        List<Integer> ids = jdbcTemplate.queryForList(select, params, Integer.class);
+        if (ids.isEmpty()) {
+            // Returns nothing when a concurrent transaction inserted the same value first.
+            ids = jdbcTemplate.queryForList("INSERT INTO " + kind.table() + " (" + kind.column() + ") " +
+                    "VALUES (:value) ON CONFLICT (" + kind.column() + ") DO NOTHING RETURNING id", params, Integer.class);
+        }
+        if (ids.isEmpty()) {
+            ids = jdbcTemplate.queryForList(select, params, Integer.class);
+        }
+        return ids.get(0);
+    }
+
+    public Map<String, Integer> findIds(DictionaryKind kind, Collection<String> values) {
+        Map<String, Integer> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, " + kind.column() + " AS value FROM " + kind.table() +
+                        " WHERE " + kind.column() + " IN (:values)",
+                new MapSqlParameterSource("values", values),
+                rs -> {
+                    ids.put(rs.getString("value"), rs.getInt("id"));
+                });
+        return ids;
+    }
+
+    public Map<Integer, String> findValues(DictionaryKind kind, Collection<Integer> ids) {
+        Map<Integer, String> values = new HashMap<>();
+        jdbcTemplate.query("SELECT id, " + kind.column() + " AS value FROM " + kind.table() +
+                        " WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids),
+                rs -> {
+                    values.put(rs.getInt("id"), rs.getString("value"));
+                });
+        return values;
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.stats.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class HitPartitionRepository {
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt " +
+                "JOIN pg_class c ON c.oid = pt.partrelid " +
+                "WHERE c.relname = 'hits' AND pg_table_is_visible(c.oid))", Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = 'hits' AND pg_table_is_visible(p.oid)", String.class);
+    }
+
+    /**
+     * Hits for the range that already landed in the default partition are moved into the new one,
+     * otherwise attaching it would fail.
+     */
+    @Transactional
+    public void createPartition(String name, LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE hits INCLUDING DEFAULTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM hits_default " +
+                        "WHERE timestamp >= ? AND timestamp < ? RETURNING *) " +
+                        "INSERT INTO " + name + " SELECT * FROM moved",
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+        jdbcTemplate.execute("ALTER TABLE hits ATTACH PARTITION " + name + " FOR VALUES FROM ('" +
+                BOUND_FORMAT.format(from) + "') TO ('" + BOUND_FORMAT.format(to) + "')");
+    }
+
+    public void detachPartition(String name) {
+        jdbcTemplate.execute("ALTER TABLE hits DETACH PARTITION " + name);
+    }
+
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+}
@@ -1,41 +1,54 @@
 package ru.practicum.stats.server.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import ru.practicum.dto.ViewStatsDto;
 import ru.practicum.stats.server.entity.Hit;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface HitRepository extends JpaRepository<Hit, Long> {
+public interface HitRepository extends JpaRepository<Hit, Long>, HitRepositoryCustom {
+    String FETCH_SIZE = "1000";
 
-    @Query("SELECT new ru.practicum.dto.ViewStatsDto(h.app, h.uri, COUNT(h)) " +
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+    @Query("SELECT new ru.practicum.stats.server.repository.HitCount(h.appId, h.uriId, COUNT(h)) " +
             "FROM Hit h WHERE h.timestamp BETWEEN :start AND :end " +
-            "GROUP BY h.app, h.uri ORDER BY COUNT(h) DESC")
-    List<ViewStatsDto> findStats(@Param("start") LocalDateTime start,
-                                 @Param("end") LocalDateTime end);
+            "GROUP BY h.appId, h.uriId ORDER BY COUNT(h) DESC")
+    Stream<HitCount> streamStats(@Param("start") LocalDateTime start,
+                                 @Param("end") LocalDateTime end,
+                                 Limit limit);
 
-    @Query("SELECT new ru.practicum.dto.ViewStatsDto(h.app, h.uri, COUNT(h)) " +
-            "FROM Hit h WHERE h.timestamp BETWEEN :start AND :end AND h.uri IN :uris " +
-            "GROUP BY h.app, h.uri ORDER BY COUNT(h) DESC")
-    List<ViewStatsDto> findStatsByUris(@Param("start") LocalDateTime start,
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+    @Query("SELECT new ru.practicum.stats.server.repository.HitCount(h.appId, h.uriId, COUNT(h)) " +
+            "FROM Hit h WHERE h.timestamp BETWEEN :start AND :end AND h.uriId IN :uriIds " +
+            "GROUP BY h.appId, h.uriId ORDER BY COUNT(h) DESC")
+    Stream<HitCount> streamStatsByUris(@Param("start") LocalDateTime start,
                                        @Param("end") LocalDateTime end,
-                                       @Param("uris") List<String> uris);
+                                       @Param("uriIds") List<Integer> uriIds,
+                                       Limit limit);
 
-    @Query("SELECT new ru.practicum.dto.ViewStatsDto(h.app, h.uri, COUNT(DISTINCT h.ip)) " +
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+    @Query("SELECT new ru.practicum.stats.server.repository.HitCount(h.appId, h.uriId, COUNT(DISTINCT h.ip)) " +
             "FROM Hit h WHERE h.timestamp BETWEEN :start AND :end " +
-            "GROUP BY h.app, h.uri ORDER BY COUNT(DISTINCT h.ip) DESC")
-    List<ViewStatsDto> findUniqueStats(@Param("start") LocalDateTime start,
-                                       @Param("end") LocalDateTime end);
+            "GROUP BY h.appId, h.uriId ORDER BY COUNT(DISTINCT h.ip) DESC")
+    Stream<HitCount> streamUniqueStats(@Param("start") LocalDateTime start,
+                                       @Param("end") LocalDateTime end,
+                                       Limit limit);
 
-    @Query("SELECT new ru.practicum.dto.ViewStatsDto(h.app, h.uri, COUNT(DISTINCT h.ip)) " +
-            "FROM Hit h WHERE h.timestamp BETWEEN :start AND :end AND h.uri IN :uris " +
-            "GROUP BY h.app, h.uri ORDER BY COUNT(DISTINCT h.ip) DESC")
-    List<ViewStatsDto> findUniqueStatsByUris(@Param("start") LocalDateTime start,
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+    @Query("SELECT new ru.practicum.stats.server.repository.HitCount(h.appId, h.uriId, COUNT(DISTINCT h.ip)) " +
+            "FROM Hit h WHERE h.timestamp BETWEEN :start AND :end AND h.uriId IN :uriIds " +
+            "GROUP BY h.appId, h.uriId ORDER BY COUNT(DISTINCT h.ip) DESC")
+    Stream<HitCount> streamUniqueStatsByUris(@Param("start") LocalDateTime start,
                                              @Param("end") LocalDateTime end,
-                                             @Param("uris") List<String> uris);
+                                             @Param("uriIds") List<Integer> uriIds,
+                                             Limit limit);
 }
@@ -0,0 +1,16 @@
+package ru.practicum.stats.server.repository;
+
+import ru.practicum.stats.server.entity.Hit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface HitRepositoryCustom {
+    int insertAll(List<Hit> hits);
+
+    /**
+     * Returns the app, uri and ip of the given hits that have a stored hit with the same
+     * app, uri and ip in [start, end]. Timestamps of the given hits are ignored.
+     */
+    List<Hit> findStoredVisits(LocalDateTime start, LocalDateTime end, List<Hit> visits);
+}
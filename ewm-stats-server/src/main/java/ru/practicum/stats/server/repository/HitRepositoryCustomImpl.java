@@ -0,0 +1,60 @@
+package ru.practicum.stats.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.stats.server.entity.Hit;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class HitRepositoryCustomImpl implements HitRepositoryCustom {
+    private static final String INSERT_SQL = "INSERT INTO hits (app_id, uri_id, ip, timestamp) VALUES (?, ?, ?::inet, ?)";
+    private static final int VISIT_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertAll(List<Hit> hits) {
+        if (hits.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, hits, hits.size(), (ps, hit) -> {
+            ps.setInt(1, hit.getAppId());
+            ps.setInt(2, hit.getUriId());
+            ps.setString(3, hit.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+        return hits.size();
+    }
+
+    @Override
+    public List<Hit> findStoredVisits(LocalDateTime start, LocalDateTime end, List<Hit> visits) {
+        List<Hit> stored = new ArrayList<>();
+        for (int from = 0; from < visits.size(); from += VISIT_CHUNK_SIZE) {
+            List<Hit> chunk = visits.subList(from, Math.min(visits.size(), from + VISIT_CHUNK_SIZE));
+            List<Object> args = new ArrayList<>(2 + chunk.size() * 3);
+            args.add(Timestamp.valueOf(start));
+            args.add(Timestamp.valueOf(end));
+            for (Hit visit : chunk) {
+                args.add(visit.getAppId());
+                args.add(visit.getUriId());
+                args.add(visit.getIp());
+            }
+            String sql = "SELECT DISTINCT app_id, uri_id, host(ip) AS ip FROM hits " +
+                    "WHERE timestamp BETWEEN ? AND ? AND (app_id, uri_id, ip) IN (" +
+                    String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?::inet)")) + ")";
+            jdbcTemplate.query(sql, rs -> {
+                Hit hit = new Hit();
+                hit.setAppId(rs.getInt("app_id"));
+                hit.setUriId(rs.getInt("uri_id"));
+                hit.setIp(rs.getString("ip"));
+                stored.add(hit);
+            }, args.toArray());
+        }
+        return stored;
+    }
+}
@@ -0,0 +1,181 @@
+package ru.practicum.stats.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.server.entity.Hit;
+import ru.practicum.stats.server.rollup.RollupGranularity;
+import ru.practicum.stats.server.rollup.TimeSlice;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+@Repository
+@RequiredArgsConstructor
+public class HitRollupRepository {
+    private static final String UPSERT_SQL = "INSERT INTO hit_rollups (granularity, bucket_start, app_id, uri_id, hits) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (granularity, bucket_start, app_id, uri_id) DO UPDATE SET hits = hit_rollups.hits + EXCLUDED.hits";
+
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator
+            .comparing(RollupKey::granularity)
+            .thenComparing(RollupKey::bucketStart)
+            .thenComparingInt(RollupKey::appId)
+            .thenComparingInt(RollupKey::uriId);
+
+    private static final RowMapper<BucketCount> BUCKET_COUNT_MAPPER = (rs, rowNum) -> new BucketCount(
+            rs.getInt("app_id"), rs.getInt("uri_id"), rs.getTimestamp("bucket_start").toLocalDateTime(),
+            rs.getLong("hits"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds the hits to the rollups of their buckets, each row upserted once for all of them.
+     */
+    public void increment(List<Hit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        // Keys are upserted in a fixed order so that concurrent batches lock rows in the same order.
+        Map<RollupKey, Long> counts = new TreeMap<>(KEY_ORDER);
+        for (Hit hit : hits) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                RollupKey key = new RollupKey(granularity, granularity.floor(hit.getTimestamp()),
+                        hit.getAppId(), hit.getUriId());
+                counts.merge(key, 1L, Long::sum);
+            }
+        }
+        List<Map.Entry<RollupKey, Long>> rows = new ArrayList<>(counts.entrySet());
+        jdbcTemplate.getJdbcTemplate().batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            RollupKey key = row.getKey();
+            ps.setString(1, key.granularity().name());
+            ps.setTimestamp(2, Timestamp.valueOf(key.bucketStart()));
+            ps.setInt(3, key.appId());
+            ps.setInt(4, key.uriId());
+            ps.setLong(5, row.getValue());
+        });
+    }
+
+    /**
+     * Deletes the buckets that start before the cutoff, one granularity at a time so that the
+     * primary key is used.
+     */
+    public int deleteBefore(LocalDateTime cutoff) {
+        int deleted = 0;
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            deleted += jdbcTemplate.getJdbcTemplate().update(
+                    "DELETE FROM hit_rollups WHERE granularity = ? AND bucket_start < ?",
+                    granularity.name(), Timestamp.valueOf(cutoff));
+        }
+        return deleted;
+    }
+
+    /**
+     * Rolled up slices also count the hits still queued for aggregation, in the same statement,
+     * so a batch that moves hits from the queue into the rollups is seen whole or not at all.
+     * The stream holds a cursor over the result and must be closed; it is read with the
+     * template fetch size when run in a transaction.
+     */
+    public Stream<HitCount> streamStats(List<TimeSlice> slices, List<Integer> uriIds, Integer limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String uriFilter = "";
+        if (uriIds != null) {
+            params.addValue("uriIds", uriIds);
+            uriFilter = " AND uri_id IN (:uriIds)";
+        }
+
+        List<String> branches = new ArrayList<>();
+        List<String> rawRanges = new ArrayList<>();
+        List<String> queuedRanges = new ArrayList<>();
+        for (int i = 0; i < slices.size(); i++) {
+            TimeSlice slice = slices.get(i);
+            params.addValue("from" + i, Timestamp.valueOf(slice.from()));
+            params.addValue("to" + i, Timestamp.valueOf(slice.to()));
+            if (slice.isRaw()) {
+                rawRanges.add("(timestamp >= :from" + i + " AND timestamp < :to" + i + ")");
+            } else {
+                params.addValue("granularity" + i, slice.granularity().name());
+                queuedRanges.add("(timestamp >= :from" + i + " AND timestamp < :to" + i + ")");
+                branches.add("SELECT app_id, uri_id, hits FROM hit_rollups " +
+                        "WHERE granularity = :granularity" + i +
+                        " AND bucket_start >= :from" + i + " AND bucket_start < :to" + i + uriFilter);
+            }
+        }
+        if (!queuedRanges.isEmpty()) {
+            branches.add("SELECT app_id, uri_id, COUNT(*) AS hits FROM hit_aggregation_queue " +
+                    "WHERE (" + String.join(" OR ", queuedRanges) + ")" + uriFilter +
+                    " GROUP BY app_id, uri_id");
+        }
+        if (!rawRanges.isEmpty()) {
+            branches.add("SELECT app_id, uri_id, COUNT(*) AS hits FROM hits " +
+                    "WHERE (" + String.join(" OR ", rawRanges) + ")" + uriFilter +
+                    " GROUP BY app_id, uri_id");
+        }
+        if (branches.isEmpty()) {
+            return Stream.empty();
+        }
+
+        String sql = "SELECT app_id, uri_id, SUM(hits) AS hits FROM (" +
+                String.join(" UNION ALL ", branches) +
+                ") s GROUP BY app_id, uri_id ORDER BY hits DESC";
+        if (limit != null) {
+            params.addValue("limit", limit);
+            sql += " LIMIT :limit";
+        }
+        return jdbcTemplate.queryForStream(sql, params, (rs, rowNum) -> new HitCount(
+                rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+
+    /**
+     * Hits of the uris in [from, to) per granularity bucket, read from the rollups and the
+     * hits still queued for them.
+     */
+    public Stream<BucketCount> streamBucketCounts(RollupGranularity granularity, LocalDateTime from,
+                                                  LocalDateTime to, List<Integer> uriIds) {
+        MapSqlParameterSource params = bucketParams(granularity, from, to, uriIds);
+        params.addValue("unit", granularity.name().toLowerCase(Locale.ROOT));
+        return jdbcTemplate.queryForStream("SELECT app_id, uri_id, bucket_start, SUM(hits) AS hits FROM (" +
+                        "SELECT app_id, uri_id, bucket_start, hits FROM hit_rollups " +
+                        "WHERE granularity = :granularity AND bucket_start >= :from AND bucket_start < :to " +
+                        "AND uri_id IN (:uriIds) " +
+                        "UNION ALL SELECT app_id, uri_id, date_trunc(:unit, timestamp), 1 FROM hit_aggregation_queue " +
+                        "WHERE timestamp >= :from AND timestamp < :to AND uri_id IN (:uriIds)" +
+                        ") s GROUP BY app_id, uri_id, bucket_start",
+                params, BUCKET_COUNT_MAPPER);
+    }
+
+    /**
+     * Same as {@link #streamBucketCounts}, counted from raw hits, for when rollups are disabled.
+     */
+    public Stream<BucketCount> streamRawBucketCounts(RollupGranularity granularity, LocalDateTime from,
+                                                     LocalDateTime to, List<Integer> uriIds) {
+        MapSqlParameterSource params = bucketParams(granularity, from, to, uriIds);
+        params.addValue("unit", granularity.name().toLowerCase(Locale.ROOT));
+        return jdbcTemplate.queryForStream("SELECT app_id, uri_id, date_trunc(:unit, timestamp) AS bucket_start, " +
+                        "COUNT(*) AS hits FROM hits " +
+                        "WHERE timestamp >= :from AND timestamp < :to AND uri_id IN (:uriIds) " +
+                        "GROUP BY 1, 2, 3",
+                params, BUCKET_COUNT_MAPPER);
+    }
+
+    private static MapSqlParameterSource bucketParams(RollupGranularity granularity, LocalDateTime from,
+                                                      LocalDateTime to, List<Integer> uriIds) {
+        return new MapSqlParameterSource()
+                .addValue("granularity", granularity.name())
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to))
+                .addValue("uriIds", uriIds);
+    }
+
+    private record RollupKey(RollupGranularity granularity, LocalDateTime bucketStart, int appId, int uriId) {
+    }
+}
@@ -0,0 +1,220 @@
+package ru.practicum.stats.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.server.dictionary.IpAddresses;
+import ru.practicum.stats.server.entity.Hit;
+import ru.practicum.stats.server.rollup.RollupGranularity;
+import ru.practicum.stats.server.rollup.TimeSlice;
+import ru.practicum.stats.server.sketch.Hashing;
+import ru.practicum.stats.server.sketch.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Stores one HyperLogLog sketch of visitor ips per rollup bucket, app and uri, encoded with
+ * {@link HyperLogLog#toBytes()}. Sketches are merged in Java, both on write and on read.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitSketchRepository {
+    private static final String UPDATE_SQL = "UPDATE hit_sketches SET registers = ? " +
+            "WHERE granularity = ? AND bucket_start = ? AND app_id = ? AND uri_id = ?";
+    private static final int KEY_CHUNK_SIZE = 500;
+
+    private static final Comparator<SketchKey> KEY_ORDER = Comparator
+            .comparing(SketchKey::granularity)
+            .thenComparing(SketchKey::bucketStart)
+            .thenComparingInt(SketchKey::appId)
+            .thenComparingInt(SketchKey::uriId);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Must run in a transaction. New buckets are inserted as they are; existing ones are locked
+     * by the same statement, then merged and written back only if a register grew. Keys are
+     * inserted in a fixed order, so concurrent batches lock rows in the same order.
+     */
+    public void update(List<Hit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        Map<SketchKey, HyperLogLog> sketches = new TreeMap<>(KEY_ORDER);
+        for (Hit hit : hits) {
+            long hash = Hashing.hash64(IpAddresses.toBytes(hit.getIp()));
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                SketchKey key = new SketchKey(granularity, granularity.floor(hit.getTimestamp()),
+                        hit.getAppId(), hit.getUriId());
+                sketches.computeIfAbsent(key, k -> new HyperLogLog()).offer(hash);
+            }
+        }
+        List<SketchKey> keys = new ArrayList<>(sketches.keySet());
+        List<Map.Entry<SketchKey, byte[]>> changed = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += KEY_CHUNK_SIZE) {
+            List<SketchKey> chunk = keys.subList(from, Math.min(keys.size(), from + KEY_CHUNK_SIZE));
+            Set<SketchKey> existing = new HashSet<>(chunk);
+            existing.removeAll(insertOrLock(chunk, sketches));
+            if (!existing.isEmpty()) {
+                findSketches(existing).forEach((key, stored) -> {
+                    if (stored.merge(sketches.get(key))) {
+                        changed.add(Map.entry(key, stored.toBytes()));
+                    }
+                });
+            }
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_SQL, changed, changed.size(), (ps, row) -> {
+            SketchKey key = row.getKey();
+            ps.setBytes(1, row.getValue());
+            ps.setString(2, key.granularity().name());
+            ps.setTimestamp(3, Timestamp.valueOf(key.bucketStart()));
+            ps.setInt(4, key.appId());
+            ps.setInt(5, key.uriId());
+        });
+    }
+
+    /**
+     * Deletes the sketches of buckets that start before the cutoff.
+     */
+    public int deleteBefore(LocalDateTime cutoff) {
+        int deleted = 0;
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            deleted += jdbcTemplate.getJdbcTemplate().update(
+                    "DELETE FROM hit_sketches WHERE granularity = ? AND bucket_start < ?",
+                    granularity.name(), Timestamp.valueOf(cutoff));
+        }
+        return deleted;
+    }
+
+    public List<HitCount> findApproximateUniqueStats(List<TimeSlice> slices, List<Integer> uriIds, Integer limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String uriFilter = "";
+        if (uriIds != null) {
+            params.addValue("uriIds", uriIds);
+            uriFilter = " AND uri_id IN (:uriIds)";
+        }
+
+        List<String> bucketRanges = new ArrayList<>();
+        List<String> queuedRanges = new ArrayList<>();
+        List<String> rawRanges = new ArrayList<>();
+        for (int i = 0; i < slices.size(); i++) {
+            TimeSlice slice = slices.get(i);
+            params.addValue("from" + i, Timestamp.valueOf(slice.from()));
+            params.addValue("to" + i, Timestamp.valueOf(slice.to()));
+            if (slice.isRaw()) {
+                rawRanges.add("(timestamp >= :from" + i + " AND timestamp < :to" + i + ")");
+            } else {
+                params.addValue("granularity" + i, slice.granularity().name());
+                queuedRanges.add("(timestamp >= :from" + i + " AND timestamp < :to" + i + ")");
+                bucketRanges.add("(granularity = :granularity" + i +
+                        " AND bucket_start >= :from" + i + " AND bucket_start < :to" + i + ")");
+            }
+        }
+
+        Map<AppUri, HyperLogLog> sketches = new HashMap<>();
+        if (!bucketRanges.isEmpty()) {
+            // Hits still queued for these buckets are read by the same statement, so a batch that
+            // folds them into the sketches is seen whole or not at all.
+            String sql = "SELECT app_id, uri_id, registers, NULL::text AS ip FROM hit_sketches " +
+                    "WHERE (" + String.join(" OR ", bucketRanges) + ")" + uriFilter +
+                    " UNION ALL SELECT DISTINCT app_id, uri_id, NULL::bytea, host(ip) FROM hit_aggregation_queue " +
+                    "WHERE (" + String.join(" OR ", queuedRanges) + ")" + uriFilter;
+            jdbcTemplate.query(sql, params, rs -> {
+                HyperLogLog sketch = sketches.computeIfAbsent(new AppUri(rs.getInt("app_id"), rs.getInt("uri_id")),
+                        k -> new HyperLogLog());
+                byte[] registers = rs.getBytes("registers");
+                if (registers != null) {
+                    sketch.merge(HyperLogLog.fromBytes(registers));
+                } else {
+                    sketch.offer(Hashing.hash64(IpAddresses.toBytes(rs.getString("ip"))));
+                }
+            });
+        }
+        if (!rawRanges.isEmpty()) {
+            String sql = "SELECT DISTINCT app_id, uri_id, host(ip) AS ip FROM hits " +
+                    "WHERE (" + String.join(" OR ", rawRanges) + ")" + uriFilter;
+            jdbcTemplate.query(sql, params, rs -> {
+                sketches.computeIfAbsent(new AppUri(rs.getInt("app_id"), rs.getInt("uri_id")),
+                                k -> new HyperLogLog())
+                        .offer(Hashing.hash64(IpAddresses.toBytes(rs.getString("ip"))));
+            });
+        }
+
+        List<HitCount> stats = new ArrayList<>(sketches.size());
+        sketches.forEach((key, sketch) -> stats.add(new HitCount(key.appId(), key.uriId(), sketch.estimate())));
+        stats.sort(Comparator.comparing(HitCount::hits).reversed());
+        return limit == null || stats.size() <= limit ? stats : stats.subList(0, limit);
+    }
+
+    /**
+     * Inserts the missing sketches and locks the existing ones: ON CONFLICT DO UPDATE locks the
+     * conflicting row even when its WHERE skips the update. Returns the keys that were inserted.
+     */
+    private Set<SketchKey> insertOrLock(List<SketchKey> keys, Map<SketchKey, HyperLogLog> sketches) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        List<String> rows = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            SketchKey key = keys.get(i);
+            addKey(params, i, key);
+            params.addValue("registers" + i, sketches.get(key).toBytes());
+            rows.add("(:granularity" + i + ", :bucketStart" + i + ", :appId" + i + ", :uriId" + i +
+                    ", :registers" + i + ")");
+        }
+        Set<SketchKey> inserted = new HashSet<>();
+        jdbcTemplate.query("INSERT INTO hit_sketches (granularity, bucket_start, app_id, uri_id, registers) " +
+                        "VALUES " + String.join(", ", rows) + " " +
+                        "ON CONFLICT (granularity, bucket_start, app_id, uri_id) " +
+                        "DO UPDATE SET registers = EXCLUDED.registers WHERE FALSE " +
+                        "RETURNING granularity, bucket_start, app_id, uri_id",
+                params, rs -> {
+                    inserted.add(new SketchKey(RollupGranularity.valueOf(rs.getString("granularity")),
+                            rs.getTimestamp("bucket_start").toLocalDateTime(),
+                            rs.getInt("app_id"), rs.getInt("uri_id")));
+                });
+        return inserted;
+    }
+
+    private Map<SketchKey, HyperLogLog> findSketches(Set<SketchKey> keys) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        List<String> tuples = new ArrayList<>(keys.size());
+        int i = 0;
+        for (SketchKey key : keys) {
+            addKey(params, i, key);
+            tuples.add("(:granularity" + i + ", :bucketStart" + i + ", :appId" + i + ", :uriId" + i + ")");
+            i++;
+        }
+        Map<SketchKey, HyperLogLog> found = new HashMap<>();
+        jdbcTemplate.query("SELECT granularity, bucket_start, app_id, uri_id, registers FROM hit_sketches " +
+                        "WHERE (granularity, bucket_start, app_id, uri_id) IN (" + String.join(", ", tuples) + ")",
+                params, rs -> {
+                    found.put(new SketchKey(RollupGranularity.valueOf(rs.getString("granularity")),
+                                    rs.getTimestamp("bucket_start").toLocalDateTime(),
+                                    rs.getInt("app_id"), rs.getInt("uri_id")),
+                            HyperLogLog.fromBytes(rs.getBytes("registers")));
+                });
+        return found;
+    }
+
+    private static void addKey(MapSqlParameterSource params, int i, SketchKey key) {
+        params.addValue("granularity" + i, key.granularity().name());
+        params.addValue("bucketStart" + i, Timestamp.valueOf(key.bucketStart()));
+        params.addValue("appId" + i, key.appId());
+        params.addValue("uriId" + i, key.uriId());
+    }
+
+    private record SketchKey(RollupGranularity granularity, LocalDateTime bucketStart, int appId, int uriId) {
+    }
+
+    private record AppUri(int appId, int uriId) {
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.stats.server.rollup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.server.entity.Hit;
+import ru.practicum.stats.server.repository.HitAggregationQueueRepository;
+import ru.practicum.stats.server.repository.HitRollupRepository;
+import ru.practicum.stats.server.repository.HitSketchRepository;
+
+import java.util.List;
+
+/**
+ * Folds queued hits into the rollups and sketches every stats.rollup.aggregation-interval-ms,
+ * in transactions of up to stats.rollup.aggregation-batch-size hits. Each rollup and sketch row
+ * is written once per batch, so hits on the same uri do not wait for each other's row locks.
+ * Reads add the hits still queued, so they do not depend on how far behind the aggregator is.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.storage.engine", havingValue = "jdbc", matchIfMissing = true)
+public class HitAggregator {
+    private final HitAggregationQueueRepository queueRepository;
+    private final HitRollupRepository rollupRepository;
+    private final HitSketchRepository sketchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean rollupEnabled;
+    private final boolean sketchEnabled;
+    private final int batchSize;
+
+    public HitAggregator(HitAggregationQueueRepository queueRepository,
+                         HitRollupRepository rollupRepository,
+                         HitSketchRepository sketchRepository,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${stats.rollup.enabled:true}") boolean rollupEnabled,
+                         @Value("${stats.sketch.enabled:true}") boolean sketchEnabled,
+                         @Value("${stats.rollup.aggregation-batch-size:10000}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Aggregation batch size must be positive");
+        }
+        this.queueRepository = queueRepository;
+        this.rollupRepository = rollupRepository;
+        this.sketchRepository = sketchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.rollupEnabled = rollupEnabled;
+        this.sketchEnabled = sketchEnabled;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${stats.rollup.aggregation-interval-ms:1000}")
+    public void aggregateQuietly() {
+        if (!rollupEnabled && !sketchEnabled) {
+            return;
+        }
+        try {
+            aggregate();
+        } catch (Exception e) {
+            log.warn("Failed to fold queued hits into rollups and sketches, will retry", e);
+        }
+    }
+
+    /**
+     * Drains the queue and returns the number of hits folded in.
+     */
+    public long aggregate() {
+        long total = 0;
+        int folded;
+        do {
+            folded = transactionTemplate.execute(status -> {
+                List<Hit> hits = queueRepository.take(batchSize);
+                if (rollupEnabled) {
+                    rollupRepository.increment(hits);
+                }
+                if (sketchEnabled) {
+                    sketchRepository.update(hits);
+                }
+                return hits.size();
+            });
+            total += folded;
+        } while (folded == batchSize);
+        return total;
+    }
+}
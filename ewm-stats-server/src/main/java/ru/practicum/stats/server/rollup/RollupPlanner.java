@@ -0,0 +1,42 @@
+package ru.practicum.stats.server.rollup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a time range into the coarsest rollup buckets that fit into it,
+ * leaving only the unaligned edges to be read from raw hits.
+ */
+public final class RollupPlanner {
+    private static final RollupGranularity[] LEVELS = RollupGranularity.values();
+
+    private RollupPlanner() {
+    }
+
+    public static List<TimeSlice> plan(LocalDateTime from, LocalDateTime to) {
+        List<TimeSlice> slices = new ArrayList<>();
+        split(from, to, LEVELS.length - 1, slices);
+        return slices;
+    }
+
+    private static void split(LocalDateTime from, LocalDateTime to, int level, List<TimeSlice> slices) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (level < 0) {
+            slices.add(new TimeSlice(null, from, to));
+            return;
+        }
+        RollupGranularity granularity = LEVELS[level];
+        LocalDateTime alignedFrom = granularity.ceil(from);
+        LocalDateTime alignedTo = granularity.floor(to);
+        if (!alignedFrom.isBefore(alignedTo)) {
+            split(from, to, level - 1, slices);
+            return;
+        }
+        split(from, alignedFrom, level - 1, slices);
+        slices.add(new TimeSlice(granularity, alignedFrom, alignedTo));
+        split(alignedTo, to, level - 1, slices);
+    }
+}
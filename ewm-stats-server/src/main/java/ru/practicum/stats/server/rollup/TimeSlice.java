@@ -0,0 +1,13 @@
+package ru.practicum.stats.server.rollup;
+
+import java.time.LocalDateTime;
+
+/**
+ * Half-open time range [from, to). A slice without granularity has to be read from raw hits.
+ */
+public record TimeSlice(RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+
+    public boolean isRaw() {
+        return granularity == null;
+    }
+}
@@ -1,49 +1,366 @@
 package ru.practicum.stats.server.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitBatchResultDto;
 import ru.practicum.dto.ViewStatsDto;
-import ru.practicum.stats.server.entity.Hit;
-import ru.practicum.stats.server.mapper.HitMapper;
-import ru.practicum.stats.server.repository.HitRepository;
+import ru.practicum.dto.ViewStatsSeriesDto;
+import ru.practicum.stats.server.dictionary.IpAddresses;
+import ru.practicum.stats.server.exception.ConflictException;
+import ru.practicum.stats.server.ingest.HitDeduplicator;
+import ru.practicum.stats.server.ingest.KeyRegistration;
+import ru.practicum.stats.server.ingest.WriteBehindHitBuffer;
+import ru.practicum.stats.server.metrics.StatsMetrics;
+import ru.practicum.stats.server.storage.HitStorage;
+import ru.practicum.stats.server.storage.StatsQuery;
+import ru.practicum.stats.server.storage.Visit;
+import ru.practicum.stats.server.timeseries.RecentHitSeries;
+import ru.practicum.stats.server.timeseries.TimeSeriesBuilder;
+import ru.practicum.stats.server.timeseries.TimeSeriesQuery;
+import ru.practicum.stats.server.top.TopUriTracker;
+import ru.practicum.stats.server.top.TopWindow;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
-@Transactional(readOnly = true)
 public class StatsService {
-    private final HitRepository repository;
-    private final HitMapper mapper;
+    private static final String HIT_KEY_PREFIX = "hit:";
+    private static final String BATCH_KEY_PREFIX = "batch:";
 
-    @Transactional
+    private final HitStorage storage;
+    private final WriteBehindHitBuffer writeBehindBuffer;
+    private final HitDeduplicator deduplicator;
+    private final TopUriTracker topUriTracker;
+    private final RecentHitSeries recentSeries;
+    private final StatsMetrics metrics;
+
+    @Value("${stats.timeseries.max-points:10000}")
+    private int maxSeriesPoints;
+
+    /**
+     * In write-behind mode the hit is only buffered and is returned as received. A hit whose
+     * idempotency key was stored within the dedup window is not stored again and is also
+     * returned as received; while another request is still storing the key, the hit is
+     * refused with a conflict, so the client retries it later.
+     */
     public EndpointHitDto save(EndpointHitDto dto) {
-        Hit hit = mapper.toEntity(dto);
-        Hit saved = repository.save(hit);
-        return mapper.toDto(saved);
+        Admission admission = new Admission(false);
+        if (!admission.admit(dto)) {
+            metrics.hitsDeduplicated(1);
+            return dto;
+        }
+        EndpointHitDto saved;
+        try {
+            if (writeBehindBuffer.isEnabled()) {
+                writeBehindBuffer.append(List.of(dto));
+                saved = dto;
+            } else {
+                saved = metrics.timeWrite("save", () -> storage.save(dto));
+            }
+        } catch (RuntimeException e) {
+            admission.rollback();
+            throw e;
+        }
+        admission.complete();
+        metrics.hitAccepted();
+        return saved;
+    }
+
+    public HitBatchResultDto saveAll(Iterator<EndpointHitDto> hits) {
+        return saveAll(hits, null);
+    }
+
+    /**
+     * A batch whose key was stored within the dedup window is skipped as a whole, and hits whose
+     * own keys were stored, or repeat an earlier key of the batch, are left out; both count as
+     * duplicates. A batch or hit key still being stored by another request fails the batch
+     * with a conflict. Invalid hits are left out too,
+     * so one bad hit does not cost the rest of the batch; they count as received but not saved.
+     * If storing fails, the keys are forgotten so that the batch can be retried. In write-behind
+     * mode the whole batch is admitted before any of it is buffered.
+     */
+    public HitBatchResultDto saveAll(Iterator<EndpointHitDto> hits, String batchKey) {
+        String key = batchKey == null ? null : BATCH_KEY_PREFIX + batchKey;
+        KeyRegistration registration = deduplicator.register(key);
+        if (registration == KeyRegistration.PENDING) {
+            throw new ConflictException("Batch " + batchKey + " is still being stored");
+        }
+        if (registration == KeyRegistration.DUPLICATE) {
+            long received = 0;
+            while (hits.hasNext()) {
+                hits.next();
+                received++;
+            }
+            metrics.hitsDeduplicated(received);
+            return HitBatchResultDto.builder()
+                    .received(received)
+                    .duplicates(received)
+                    .build();
+        }
+
+        Admission admission = new Admission(true);
+        HitBatchResultDto stored;
+        try {
+            stored = writeBehindBuffer.isEnabled()
+                    ? bufferAll(hits, admission)
+                    : metrics.timeWrite("saveAll", () -> storage.saveAll(admitted(hits, admission)));
+        } catch (RuntimeException e) {
+            deduplicator.forget(key);
+            admission.rollback();
+            throw e;
+        }
+        deduplicator.complete(key);
+        admission.complete();
+        metrics.batchAccepted(stored.getReceived());
+        metrics.hitsDeduplicated(admission.duplicates);
+        return HitBatchResultDto.builder()
+                .received(stored.getReceived() + admission.duplicates + admission.rejected)
+                .saved(stored.getSaved())
+                .duplicates(admission.duplicates)
+                .build();
     }
 
-    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end,
-                                       List<String> uris, Boolean unique) {
-        validateDates(start, end);
+    /**
+     * Hits still held by the write-behind buffer are added to the stored counts. Rows are then
+     * collected before they are passed on; without such hits they are streamed from storage.
+     */
+    public void streamStats(StatsQuery query, Consumer<ViewStatsDto> consumer) {
+        long started = System.nanoTime();
+        long[] rows = {0};
+        String outcome = "error";
+        try {
+            Consumer<ViewStatsDto> counting = stat -> {
+                consumer.accept(stat);
+                rows[0]++;
+            };
+            Set<String> uris = query.hasUris() ? new HashSet<>(query.uris()) : null;
+            List<ViewStatsDto> merged = writeBehindBuffer.isEnabled()
+                    ? writeBehindBuffer.readWithUnwritten(hit -> matches(query, uris, hit),
+                            unwritten -> unwritten.isEmpty() ? null : mergeUnwritten(query, unwritten))
+                    : null;
+            if (merged != null) {
+                merged.forEach(counting);
+            } else {
+                storage.streamStats(query, counting);
+            }
+            outcome = "success";
+        } finally {
+            metrics.recordQuery(query, rows[0], System.nanoTime() - started, outcome);
+        }
+    }
+
+    public List<ViewStatsDto> getTop(TopWindow window, int n, String app) {
+        return topUriTracker.getTop(window, n, app);
+    }
+
+    /**
+     * Steps from the minutes that the in-memory ring holds completely are read from it,
+     * earlier ones from storage, at the coarsest rollup that fits the step.
+     */
+    public List<ViewStatsSeriesDto> getTimeSeries(TimeSeriesQuery query) {
+        if (query.bucketCount() > maxSeriesPoints) {
+            throw new IllegalArgumentException("A series may have at most " + maxSeriesPoints + " points");
+        }
+        long started = System.nanoTime();
+        LocalDateTime split = recentSeries.isEnabled()
+                ? query.stepBoundaryAtOrAfter(recentSeries.coveredFrom())
+                : query.to();
+        TimeSeriesBuilder series = new TimeSeriesBuilder(query);
+        if (query.from().isBefore(split)) {
+            if (writeBehindBuffer.isEnabled()) {
+                Set<String> uris = new HashSet<>(query.uris());
+                writeBehindBuffer.readWithUnwritten(hit -> uris.contains(hit.getUri())
+                                && !hit.getTimestamp().isBefore(query.from()) && hit.getTimestamp().isBefore(split),
+                        unwritten -> {
+                            storage.streamBucketCounts(query.from(), split, query.granularityUntil(split),
+                                    query.uris(), series);
+                            unwritten.forEach(hit -> series.accept(hit.getApp(), hit.getUri(), hit.getTimestamp(), 1));
+                            return null;
+                        });
+            } else {
+                storage.streamBucketCounts(query.from(), split, query.granularityUntil(split), query.uris(), series);
+            }
+        }
+        if (split.isBefore(query.to())) {
+            recentSeries.streamMinuteCounts(split, query.to(), query.uris(), series);
+        }
+        List<ViewStatsSeriesDto> result = series.build();
+        metrics.recordTimeSeries(seriesSource(query, split), System.nanoTime() - started);
+        return result;
+    }
 
-        if (uris != null && !uris.isEmpty()) {
-            return unique
-                    ? repository.findUniqueStatsByUris(start, end, uris)
-                    : repository.findStatsByUris(start, end, uris);
+    /**
+     * Only the stored top rows and the stored rows of the uris with unwritten hits can make the
+     * merged top rows, so the stored query keeps its limit. Unique counts only grow by the ips
+     * not stored for the uri yet.
+     */
+    private List<ViewStatsDto> mergeUnwritten(StatsQuery query, List<EndpointHitDto> unwritten) {
+        Map<AppUri, Long> added = new HashMap<>();
+        if (query.unique()) {
+            Set<Visit> visits = new HashSet<>();
+            for (EndpointHitDto hit : unwritten) {
+                visits.add(new Visit(hit.getApp(), hit.getUri(), IpAddresses.normalize(hit.getIp())));
+            }
+            visits.removeAll(storage.findStoredVisits(query.start(), query.end(), visits));
+            visits.forEach(visit -> added.merge(new AppUri(visit.app(), visit.uri()), 1L, Long::sum));
         } else {
-            return unique
-                    ? repository.findUniqueStats(start, end)
-                    : repository.findStats(start, end);
+            unwritten.forEach(hit -> added.merge(new AppUri(hit.getApp(), hit.getUri()), 1L, Long::sum));
         }
+
+        Map<AppUri, Long> counts = new HashMap<>();
+        Consumer<ViewStatsDto> collector = stat -> counts.put(new AppUri(stat.getApp(), stat.getUri()), stat.getHits());
+        storage.streamStats(query, collector);
+        if (!added.isEmpty()) {
+            List<String> uris = added.keySet().stream().map(AppUri::uri).distinct().toList();
+            storage.streamStats(new StatsQuery(query.start(), query.end(), uris, query.unique(),
+                    query.approximate(), null), collector);
+            added.forEach((key, hits) -> counts.merge(key, hits, Long::sum));
+        }
+
+        List<ViewStatsDto> merged = new ArrayList<>(counts.size());
+        counts.forEach((key, hits) -> merged.add(new ViewStatsDto(key.app(), key.uri(), hits)));
+        merged.sort(Comparator.comparing(ViewStatsDto::getHits).reversed());
+        return query.limit() == null || merged.size() <= query.limit() ? merged : merged.subList(0, query.limit());
     }
 
-    private void validateDates(LocalDateTime start, LocalDateTime end) {
-        if (start.isAfter(end)) {
-            throw new IllegalArgumentException("Start date must be before end date");
+    private static boolean matches(StatsQuery query, Set<String> uris, EndpointHitDto hit) {
+        return !hit.getTimestamp().isBefore(query.start()) && !hit.getTimestamp().isAfter(query.end())
+                && (uris == null || uris.contains(hit.getUri()));
+    }
+
+    private static String seriesSource(TimeSeriesQuery query, LocalDateTime split) {
+        if (!split.isAfter(query.from())) {
+            return "memory";
+        }
+        return split.isBefore(query.to()) ? "mixed" : "storage";
+    }
+
+    private Iterator<EndpointHitDto> admitted(Iterator<EndpointHitDto> hits, Admission admission) {
+        return new Iterator<>() {
+            private EndpointHitDto next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && hits.hasNext()) {
+                    EndpointHitDto dto = hits.next();
+                    if (admission.admit(dto)) {
+                        next = dto;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public EndpointHitDto next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                EndpointHitDto dto = next;
+                next = null;
+                return dto;
+            }
+        };
+    }
+
+    private HitBatchResultDto bufferAll(Iterator<EndpointHitDto> hits, Admission admission) {
+        List<EndpointHitDto> admitted = new ArrayList<>();
+        admitted(hits, admission).forEachRemaining(admitted::add);
+        writeBehindBuffer.append(admitted);
+        return HitBatchResultDto.builder()
+                .received(admitted.size())
+                .saved(admitted.size())
+                .build();
+    }
+
+    private void validateHit(EndpointHitDto dto) {
+        if (dto == null || dto.getApp() == null || dto.getUri() == null
+                || dto.getIp() == null || dto.getTimestamp() == null) {
+            throw new IllegalArgumentException("Hit must contain app, uri, ip and timestamp");
         }
+        IpAddresses.toBytes(dto.getIp());
+    }
+
+    /**
+     * Validates the hits of one request and registers their idempotency keys.
+     */
+    private final class Admission {
+        private final boolean skipInvalid;
+        private final Set<String> keys = new HashSet<>();
+        private final List<EndpointHitDto> hits = new ArrayList<>();
+        private long duplicates;
+        private long rejected;
+
+        Admission(boolean skipInvalid) {
+            this.skipInvalid = skipInvalid;
+        }
+
+        /**
+         * Returns false for a hit whose key was stored within the dedup window or already admitted,
+         * and for an invalid hit when invalid hits are skipped; otherwise an invalid hit is thrown.
+         */
+        boolean admit(EndpointHitDto dto) {
+            try {
+                validateHit(dto);
+            } catch (IllegalArgumentException e) {
+                metrics.hitRejected();
+                if (!skipInvalid) {
+                    throw e;
+                }
+                rejected++;
+                return false;
+            }
+            if (dto.getIdempotencyKey() != null) {
+                String key = HIT_KEY_PREFIX + dto.getApp() + ':' + dto.getIdempotencyKey();
+                if (keys.contains(key)) {
+                    duplicates++;
+                    return false;
+                }
+                KeyRegistration registration = deduplicator.register(key);
+                if (registration == KeyRegistration.PENDING) {
+                    throw new ConflictException("Hit " + dto.getIdempotencyKey() + " is still being stored");
+                }
+                if (registration == KeyRegistration.DUPLICATE) {
+                    duplicates++;
+                    return false;
+                }
+                keys.add(key);
+            }
+            hits.add(dto);
+            return true;
+        }
+
+        /**
+         * Marks the keys as stored and records the admitted hits in the top uris and the recent
+         * series once they are stored or buffered.
+         */
+        void complete() {
+            keys.forEach(deduplicator::complete);
+            keys.clear();
+            for (EndpointHitDto hit : hits) {
+                topUriTracker.record(hit);
+                recentSeries.record(hit);
+            }
+        }
+
+        void rollback() {
+            keys.forEach(deduplicator::forget);
+            keys.clear();
+        }
+    }
+
+    private record AppUri(String app, String uri) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package ru.practicum.stats.server.sketch;
+
+import java.nio.charset.StandardCharsets;
+
+public final class Hashing {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+    }
+
+    public static long hash64(String value) {
+        return hash64(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 64-bit FNV-1a over the bytes followed by the MurmurHash3 finalizer,
+     * which spreads the bits well enough for sketch register selection.
+     */
+    public static long hash64(byte[] value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : value) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    public static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
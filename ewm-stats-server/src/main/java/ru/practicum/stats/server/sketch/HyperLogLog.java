@@ -0,0 +1,111 @@
+package ru.practicum.stats.server.sketch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * HyperLogLog cardinality sketch with 2^12 registers. The relative standard error
+ * of {@link #estimate()} is 1.04 / sqrt(4096), about 1.6%; small cardinalities are
+ * estimated with linear counting and are close to exact.
+ */
+public class HyperLogLog {
+    public static final int PRECISION = 12;
+    public static final int REGISTERS = 1 << PRECISION;
+    public static final double RELATIVE_STANDARD_ERROR = 1.04 / Math.sqrt(REGISTERS);
+
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+    private static final byte SPARSE = 0;
+    private static final byte DENSE = 1;
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    public static int registerOf(long hash) {
+        return (int) (hash >>> (Long.SIZE - PRECISION));
+    }
+
+    public static int rankOf(long hash) {
+        return Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+    }
+
+    public void offer(long hash) {
+        update(registerOf(hash), rankOf(hash));
+    }
+
+    public void update(int register, int rank) {
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    /**
+     * Returns true if any register grew.
+     */
+    public boolean merge(HyperLogLog other) {
+        boolean changed = false;
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * (register, rank) pairs while fewer than a third of the registers are set, so that sketches
+     * of small buckets stay small, otherwise one byte per register. Both start with a format byte.
+     */
+    public byte[] toBytes() {
+        int set = 0;
+        for (byte rank : registers) {
+            if (rank != 0) {
+                set++;
+            }
+        }
+        if (set * 3 >= REGISTERS) {
+            byte[] bytes = new byte[1 + REGISTERS];
+            bytes[0] = DENSE;
+            System.arraycopy(registers, 0, bytes, 1, REGISTERS);
+            return bytes;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 + set * 3);
+        buffer.put(SPARSE);
+        for (int i = 0; i < REGISTERS; i++) {
+            if (registers[i] != 0) {
+                buffer.putShort((short) i);
+                buffer.put(registers[i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog sketch = new HyperLogLog();
+        if (bytes[0] == DENSE) {
+            System.arraycopy(bytes, 1, sketch.registers, 0, REGISTERS);
+        } else if (bytes[0] == SPARSE) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+            while (buffer.hasRemaining()) {
+                sketch.update(buffer.getShort() & 0xffff, buffer.get());
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown sketch format: " + bytes[0]);
+        }
+        return sketch;
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte rank : registers) {
+            sum += 1.0 / (1L << rank);
+            if (rank == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+}
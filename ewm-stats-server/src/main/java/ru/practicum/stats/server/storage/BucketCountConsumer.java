@@ -0,0 +1,8 @@
+package ru.practicum.stats.server.storage;
+
+import java.time.LocalDateTime;
+
+@FunctionalInterface
+public interface BucketCountConsumer {
+    void accept(String app, String uri, LocalDateTime bucketStart, long hits);
+}
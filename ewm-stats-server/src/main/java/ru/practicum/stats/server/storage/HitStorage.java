@@ -0,0 +1,39 @@
+package ru.practicum.stats.server.storage;
+
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitBatchResultDto;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.server.rollup.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Storage engine for hits, selected by stats.storage.engine. Hits passed in are already validated.
+ */
+public interface HitStorage {
+    EndpointHitDto save(EndpointHitDto hit);
+
+    HitBatchResultDto saveAll(Iterator<EndpointHitDto> hits);
+
+    /**
+     * Passes the rows of the query to the consumer, ordered by hits descending, as they are read.
+     */
+    void streamStats(StatsQuery query, Consumer<ViewStatsDto> consumer);
+
+    /**
+     * Passes the hits of the given uris in [from, to) per app, uri and granularity bucket,
+     * in no particular order. from and to must be aligned to the granularity.
+     */
+    void streamBucketCounts(LocalDateTime from, LocalDateTime to, RollupGranularity granularity,
+                            List<String> uris, BucketCountConsumer consumer);
+
+    /**
+     * Returns the given visits that have a stored hit in [start, end], both ends inclusive.
+     */
+    Set<Visit> findStoredVisits(LocalDateTime start, LocalDateTime end, Collection<Visit> visits);
+}
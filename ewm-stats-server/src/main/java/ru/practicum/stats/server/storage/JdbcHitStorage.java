@@ -0,0 +1,253 @@
+package ru.practicum.stats.server.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitBatchResultDto;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.server.dictionary.DictionaryKind;
+import ru.practicum.stats.server.dictionary.HitDictionary;
+import ru.practicum.stats.server.dictionary.IpAddresses;
+import ru.practicum.stats.server.entity.Hit;
+import ru.practicum.stats.server.mapper.HitMapper;
+import ru.practicum.stats.server.repository.BucketCount;
+import ru.practicum.stats.server.repository.HitAggregationQueueRepository;
+import ru.practicum.stats.server.repository.HitCount;
+import ru.practicum.stats.server.repository.HitRepository;
+import ru.practicum.stats.server.repository.HitRollupRepository;
+import ru.practicum.stats.server.repository.HitSketchRepository;
+import ru.practicum.stats.server.rollup.HitAggregator;
+import ru.practicum.stats.server.rollup.RollupGranularity;
+import ru.practicum.stats.server.rollup.RollupPlanner;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Default engine: hits in PostgreSQL. Stored hits are queued for {@link HitAggregator}, which
+ * folds them into the rollups and sketches off the request path.
+ */
+@Component
+@ConditionalOnProperty(name = "stats.storage.engine", havingValue = "jdbc", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JdbcHitStorage implements HitStorage {
+    private static final int RESOLVE_CHUNK_SIZE = 1000;
+
+    private final HitRepository repository;
+    private final HitRollupRepository rollupRepository;
+    private final HitAggregationQueueRepository queueRepository;
+    private final HitSketchRepository sketchRepository;
+    private final HitDictionary dictionary;
+    private final HitMapper mapper;
+
+    @Value("${stats.ingest.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${stats.rollup.enabled:true}")
+    private boolean rollupEnabled;
+
+    @Value("${stats.sketch.enabled:true}")
+    private boolean sketchEnabled;
+
+    @Override
+    @Transactional
+    public EndpointHitDto save(EndpointHitDto dto) {
+        Hit hit = toHit(dto, new HashMap<>(), new HashMap<>());
+        Hit saved = repository.save(hit);
+        updateAggregates(List.of(saved));
+        return mapper.toDto(saved, dto.getApp(), dto.getUri());
+    }
+
+    /**
+     * All hits are written in one transaction, in chunks of stats.ingest.batch-size.
+     */
+    @Override
+    @Transactional
+    public HitBatchResultDto saveAll(Iterator<EndpointHitDto> hits) {
+        List<Hit> chunk = new ArrayList<>(batchSize);
+        // New dictionary entries reach the shared cache only on commit, so the batch keeps its own.
+        Map<String, Integer> appIds = new HashMap<>();
+        Map<String, Integer> uriIds = new HashMap<>();
+        long received = 0;
+        long saved = 0;
+        while (hits.hasNext()) {
+            chunk.add(toHit(hits.next(), appIds, uriIds));
+            received++;
+            if (chunk.size() >= batchSize) {
+                saved += insertChunk(chunk);
+                chunk.clear();
+            }
+        }
+        saved += insertChunk(chunk);
+        return HitBatchResultDto.builder()
+                .received(received)
+                .saved(saved)
+                .build();
+    }
+
+    /**
+     * With approximate=true unique counts are estimated from HyperLogLog sketches
+     * (relative standard error about 1.6%) instead of COUNT(DISTINCT ip) over raw hits.
+     * Rows are read with a fetch size and resolved to names in chunks, so exact queries
+     * do not hold the whole result in memory; sketch queries still merge it in memory.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamStats(StatsQuery query, Consumer<ViewStatsDto> consumer) {
+        List<Integer> uriIds = null;
+        if (query.hasUris()) {
+            uriIds = dictionary.findUriIds(query.uris());
+            if (uriIds.isEmpty()) {
+                return;
+            }
+        }
+        List<HitCount> chunk = new ArrayList<>(RESOLVE_CHUNK_SIZE);
+        try (Stream<HitCount> counts = findCounts(query, uriIds)) {
+            counts.forEach(count -> {
+                chunk.add(count);
+                if (chunk.size() >= RESOLVE_CHUNK_SIZE) {
+                    dictionary.toViewStats(chunk).forEach(consumer);
+                    chunk.clear();
+                }
+            });
+        }
+        dictionary.toViewStats(chunk).forEach(consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamBucketCounts(LocalDateTime from, LocalDateTime to, RollupGranularity granularity,
+                                   List<String> uris, BucketCountConsumer consumer) {
+        List<Integer> uriIds = dictionary.findUriIds(uris);
+        if (uriIds.isEmpty()) {
+            return;
+        }
+        List<BucketCount> chunk = new ArrayList<>(RESOLVE_CHUNK_SIZE);
+        try (Stream<BucketCount> counts = rollupEnabled
+                ? rollupRepository.streamBucketCounts(granularity, from, to, uriIds)
+                : rollupRepository.streamRawBucketCounts(granularity, from, to, uriIds)) {
+            counts.forEach(count -> {
+                chunk.add(count);
+                if (chunk.size() >= RESOLVE_CHUNK_SIZE) {
+                    resolveBucketCounts(chunk, consumer);
+                    chunk.clear();
+                }
+            });
+        }
+        resolveBucketCounts(chunk, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<Visit> findStoredVisits(LocalDateTime start, LocalDateTime end, Collection<Visit> visits) {
+        Set<String> apps = new HashSet<>();
+        Set<String> uris = new HashSet<>();
+        for (Visit visit : visits) {
+            apps.add(visit.app());
+            uris.add(visit.uri());
+        }
+        Map<String, Integer> appIds = dictionary.findIds(DictionaryKind.APP, apps);
+        Map<String, Integer> uriIds = dictionary.findIds(DictionaryKind.URI, uris);
+        Map<VisitKey, Visit> known = new HashMap<>();
+        for (Visit visit : visits) {
+            Integer appId = appIds.get(visit.app());
+            Integer uriId = uriIds.get(visit.uri());
+            if (appId != null && uriId != null) {
+                known.put(new VisitKey(appId, uriId, visit.ip()), visit);
+            }
+        }
+        Set<Visit> stored = new HashSet<>();
+        if (known.isEmpty()) {
+            return stored;
+        }
+        List<Hit> hits = known.keySet().stream().map(VisitKey::toHit).toList();
+        for (Hit hit : repository.findStoredVisits(start, end, hits)) {
+            Visit visit = known.get(new VisitKey(hit.getAppId(), hit.getUriId(), IpAddresses.normalize(hit.getIp())));
+            if (visit != null) {
+                stored.add(visit);
+            }
+        }
+        return stored;
+    }
+
+    private void resolveBucketCounts(List<BucketCount> counts, BucketCountConsumer consumer) {
+        Set<Integer> appIds = new HashSet<>();
+        Set<Integer> uriIds = new HashSet<>();
+        for (BucketCount count : counts) {
+            appIds.add(count.appId());
+            uriIds.add(count.uriId());
+        }
+        Map<Integer, String> apps = dictionary.findValues(DictionaryKind.APP, appIds);
+        Map<Integer, String> uris = dictionary.findValues(DictionaryKind.URI, uriIds);
+        for (BucketCount count : counts) {
+            consumer.accept(apps.get(count.appId()), uris.get(count.uriId()), count.bucketStart(), count.hits());
+        }
+    }
+
+    private Stream<HitCount> findCounts(StatsQuery query, List<Integer> uriIds) {
+        LocalDateTime start = query.start();
+        LocalDateTime end = query.end();
+        boolean unique = query.unique();
+        // Hit timestamps have second precision, so [start, end + 1s) selects the same hits as BETWEEN.
+        if (rollupEnabled && !unique) {
+            return rollupRepository.streamStats(RollupPlanner.plan(start, end.plusSeconds(1)), uriIds, query.limit());
+        }
+        if (sketchEnabled && unique && query.approximate()) {
+            return sketchRepository.findApproximateUniqueStats(
+                    RollupPlanner.plan(start, end.plusSeconds(1)), uriIds, query.limit()).stream();
+        }
+
+        Limit limit = query.limit() == null ? Limit.unlimited() : Limit.of(query.limit());
+        if (uriIds != null) {
+            return unique
+                    ? repository.streamUniqueStatsByUris(start, end, uriIds, limit)
+                    : repository.streamStatsByUris(start, end, uriIds, limit);
+        } else {
+            return unique
+                    ? repository.streamUniqueStats(start, end, limit)
+                    : repository.streamStats(start, end, limit);
+        }
+    }
+
+    private Hit toHit(EndpointHitDto dto, Map<String, Integer> appIds, Map<String, Integer> uriIds) {
+        Hit hit = mapper.toEntity(dto);
+        hit.setAppId(appIds.computeIfAbsent(dto.getApp(), dictionary::appId));
+        hit.setUriId(uriIds.computeIfAbsent(dto.getUri(), dictionary::uriId));
+        return hit;
+    }
+
+    private int insertChunk(List<Hit> chunk) {
+        int inserted = repository.insertAll(chunk);
+        updateAggregates(chunk);
+        return inserted;
+    }
+
+    private void updateAggregates(List<Hit> hits) {
+        if (rollupEnabled || sketchEnabled) {
+            queueRepository.enqueue(hits);
+        }
+    }
+
+    private record VisitKey(int appId, int uriId, String ip) {
+        Hit toHit() {
+            Hit hit = new Hit();
+            hit.setAppId(appId);
+            hit.setUriId(uriId);
+            hit.setIp(ip);
+            return hit;
+        }
+    }
+}
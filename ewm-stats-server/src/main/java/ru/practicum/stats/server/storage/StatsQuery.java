@@ -0,0 +1,24 @@
+package ru.practicum.stats.server.storage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A /stats query: hits with timestamps in [start, end], both ends inclusive, optionally only
+ * for the given uris. With a limit only the first rows by hits are returned.
+ */
+public record StatsQuery(LocalDateTime start, LocalDateTime end, List<String> uris,
+                         boolean unique, boolean approximate, Integer limit) {
+    public StatsQuery {
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+        if (limit != null && limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+    }
+
+    public boolean hasUris() {
+        return uris != null && !uris.isEmpty();
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.stats.server.storage;
+
+/**
+ * An ip that hit a uri of an app. The ip is normalized, so equal addresses compare equal.
+ */
+public record Visit(String app, String uri, String ip) {
+}
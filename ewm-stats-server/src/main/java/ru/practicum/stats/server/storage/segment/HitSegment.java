@@ -0,0 +1,227 @@
+package ru.practicum.stats.server.storage.segment;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File of fixed-size hit records:
+ * epoch second (8 bytes), app id (4), uri id (4) and the ip as 16 IPv6 bytes.
+ * The header holds a magic number, the capacity and the number of written records;
+ * records are appended by a single writer and become visible to readers once counted.
+ * The count in the header is only updated by {@link #force()}, after the records it covers
+ * are on disk, so a crash never leaves it counting records whose pages were not written.
+ * <p>
+ * The file is memory-mapped only while it is written: it starts at {@link #INITIAL_CAPACITY} records
+ * and its mapping doubles up to the maximum capacity as records are appended, and {@link #release()}
+ * drops the mapping once the segment is idle. Scans read the file with positional reads, so closed
+ * segments take no mapping and no file descriptor between queries.
+ */
+final class HitSegment implements Closeable {
+    static final int RECORD_SIZE = 32;
+    static final int TIMESTAMP_OFFSET = 0;
+    static final int APP_OFFSET = 8;
+    static final int URI_OFFSET = 12;
+    static final int IP_OFFSET = 16;
+    static final int INITIAL_CAPACITY = 4096;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int MAGIC = 0x45574d48;
+    private static final int CAPACITY_POSITION = 4;
+    private static final int COUNT_POSITION = 8;
+    private static final int SCAN_CHUNK_RECORDS = 2048;
+
+    private final Path path;
+    private final int maxCapacity;
+    private final AtomicInteger count;
+    private volatile Mapping mapping;
+    private volatile boolean dirty;
+    private volatile boolean appended;
+
+    private HitSegment(Path path, int maxCapacity, int count, Mapping mapping) {
+        this.path = path;
+        this.maxCapacity = maxCapacity;
+        this.count = new AtomicInteger(count);
+        this.mapping = mapping;
+    }
+
+    /**
+     * Creates a new segment mapped for writing, or opens an existing one without mapping it.
+     * A segment created with a larger capacity keeps it.
+     */
+    static HitSegment open(Path path, int maxCapacity) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                Mapping mapping = map(channel, Math.min(INITIAL_CAPACITY, maxCapacity));
+                mapping.buffer().putInt(0, MAGIC);
+                mapping.buffer().putInt(COUNT_POSITION, 0);
+                return new HitSegment(path, maxCapacity, 0, mapping);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a hit segment: " + path);
+            }
+            int fileCapacity = fileCapacity(channel);
+            int count = Math.min(header.getInt(COUNT_POSITION), fileCapacity);
+            channel.close();
+            return new HitSegment(path, Math.max(maxCapacity, fileCapacity), count, null);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    boolean isMapped() {
+        return mapping != null;
+    }
+
+    /**
+     * Returns false when the segment is full. Maps a released segment again. Must not be called concurrently,
+     * nor concurrently with {@link #release()}.
+     */
+    boolean append(long epochSecond, int appId, int uriId, byte[] ip) throws IOException {
+        int index = count.get();
+        if (index >= maxCapacity) {
+            return false;
+        }
+        Mapping current = mapping;
+        if (current == null) {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                current = map(channel, Math.max(fileCapacity(channel), Math.min(INITIAL_CAPACITY, maxCapacity)));
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+        if (index >= current.capacity()) {
+            current = map(current.channel(), (int) Math.min(maxCapacity, current.capacity() * 2L));
+        }
+        // Published before the count, so force() never sees a record without a mapping that covers it.
+        mapping = current;
+        MappedByteBuffer buffer = current.buffer();
+        int offset = HEADER_SIZE + index * RECORD_SIZE;
+        buffer.putLong(offset + TIMESTAMP_OFFSET, epochSecond);
+        buffer.putInt(offset + APP_OFFSET, appId);
+        buffer.putInt(offset + URI_OFFSET, uriId);
+        buffer.put(offset + IP_OFFSET, ip);
+        count.set(index + 1);
+        dirty = true;
+        appended = true;
+        return true;
+    }
+
+    /**
+     * Visits the counted records written between the two seconds. A segment deleted by retention
+     * before the scan opens it has no records.
+     */
+    void scan(long fromEpochSecond, long toEpochSecond, RecordVisitor visitor) {
+        int records = count.get();
+        if (records == 0) {
+            return;
+        }
+        ByteBuffer chunk = ByteBuffer.allocate(Math.min(records, SCAN_CHUNK_RECORDS) * RECORD_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (int first = 0; first < records; first += SCAN_CHUNK_RECORDS) {
+                int chunkRecords = Math.min(SCAN_CHUNK_RECORDS, records - first);
+                chunk.clear().limit(chunkRecords * RECORD_SIZE);
+                readFully(channel, chunk, HEADER_SIZE + (long) first * RECORD_SIZE);
+                for (int offset = 0; offset < chunkRecords * RECORD_SIZE; offset += RECORD_SIZE) {
+                    long timestamp = chunk.getLong(offset + TIMESTAMP_OFFSET);
+                    if (timestamp >= fromEpochSecond && timestamp <= toEpochSecond) {
+                        visitor.visit(chunk, offset);
+                    }
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Expired while the query was running.
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read hit segment " + path, e);
+        }
+    }
+
+    void force() {
+        if (dirty) {
+            dirty = false;
+            int records = count.get();
+            Mapping current = mapping;
+            if (current == null) {
+                return;
+            }
+            MappedByteBuffer buffer = current.buffer();
+            buffer.force(HEADER_SIZE, records * RECORD_SIZE);
+            buffer.putInt(COUNT_POSITION, records);
+            buffer.force(0, HEADER_SIZE);
+        }
+    }
+
+    /**
+     * Returns whether records were appended since the previous call.
+     */
+    boolean takeAppended() {
+        boolean result = appended;
+        appended = false;
+        return result;
+    }
+
+    /**
+     * Forces the segment and drops its mapping; the pages are unmapped once the buffer is collected.
+     * Must not be called concurrently with {@link #append}.
+     */
+    void release() throws IOException {
+        Mapping current = mapping;
+        if (current == null) {
+            return;
+        }
+        force();
+        mapping = null;
+        current.channel().close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        release();
+    }
+
+    private static Mapping map(FileChannel channel, int capacity) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        buffer.putInt(CAPACITY_POSITION, capacity);
+        return new Mapping(channel, buffer, capacity);
+    }
+
+    private static int fileCapacity(FileChannel channel) throws IOException {
+        return (int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Hit segment is shorter than its header says");
+            }
+        }
+    }
+
+    private record Mapping(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(ByteBuffer buffer, int offset);
+    }
+}
@@ -0,0 +1,116 @@
+package ru.practicum.stats.server.storage.segment;
+
+import ru.practicum.stats.server.dictionary.DictionaryKind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * App and uri dictionary of the segment engine, kept in memory and persisted as an append-only
+ * file of (kind, id, length, UTF-8 bytes) entries. An entry is forced to disk before its id is
+ * handed out, so segment records never reference an id that is not on disk.
+ */
+final class SegmentDictionary implements Closeable {
+    private static final int ENTRY_HEADER_SIZE = 1 + 4 + 4;
+
+    private final FileChannel channel;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<DictionaryKind, Map<String, Integer>> ids = new EnumMap<>(DictionaryKind.class);
+    private final Map<DictionaryKind, Map<Integer, String>> values = new EnumMap<>(DictionaryKind.class);
+
+    private SegmentDictionary(FileChannel channel) {
+        this.channel = channel;
+        for (DictionaryKind kind : DictionaryKind.values()) {
+            ids.put(kind, new ConcurrentHashMap<>());
+            values.put(kind, new ConcurrentHashMap<>());
+        }
+    }
+
+    static SegmentDictionary open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        SegmentDictionary dictionary = new SegmentDictionary(channel);
+        dictionary.load();
+        return dictionary;
+    }
+
+    Integer find(DictionaryKind kind, String value) {
+        return ids.get(kind).get(value);
+    }
+
+    String valueOf(DictionaryKind kind, int id) {
+        return values.get(kind).get(id);
+    }
+
+    int getOrCreate(DictionaryKind kind, String value) throws IOException {
+        Integer id = ids.get(kind).get(value);
+        if (id != null) {
+            return id;
+        }
+        lock.lock();
+        try {
+            id = ids.get(kind).get(value);
+            if (id != null) {
+                return id;
+            }
+            int created = values.get(kind).size() + 1;
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + bytes.length)
+                    .put((byte) kind.ordinal())
+                    .putInt(created)
+                    .putInt(bytes.length)
+                    .put(bytes)
+                    .flip();
+            while (entry.hasRemaining()) {
+                channel.write(entry);
+            }
+            channel.force(false);
+            values.get(kind).put(created, value);
+            ids.get(kind).put(value, created);
+            return created;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void load() throws IOException {
+        long size = channel.size();
+        ByteBuffer file = ByteBuffer.allocate((int) size);
+        while (file.hasRemaining() && channel.read(file, file.position()) > 0) {
+            // read until the whole file is in memory
+        }
+        file.flip();
+        int valid = 0;
+        while (file.remaining() >= ENTRY_HEADER_SIZE) {
+            DictionaryKind kind = DictionaryKind.values()[file.get()];
+            int id = file.getInt();
+            int length = file.getInt();
+            if (length < 0 || file.remaining() < length) {
+                break;
+            }
+            byte[] bytes = new byte[length];
+            file.get(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            values.get(kind).put(id, value);
+            ids.get(kind).put(value, id);
+            valid = file.position();
+        }
+        // Drops an entry torn by a crash, so that new entries are appended at a record boundary.
+        channel.truncate(valid);
+        channel.position(valid);
+    }
+}
@@ -0,0 +1,418 @@
+package ru.practicum.stats.server.storage.segment;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitBatchResultDto;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.server.dictionary.DictionaryKind;
+import ru.practicum.stats.server.dictionary.IpAddresses;
+import ru.practicum.stats.server.rollup.RollupGranularity;
+import ru.practicum.stats.server.sketch.Hashing;
+import ru.practicum.stats.server.sketch.HyperLogLog;
+import ru.practicum.stats.server.storage.BucketCountConsumer;
+import ru.practicum.stats.server.storage.HitStorage;
+import ru.practicum.stats.server.storage.StatsQuery;
+import ru.practicum.stats.server.storage.Visit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local append-only engine: hits go to segment files, one or more per hour of hit time,
+ * named hits-yyyyMMddHH-NNN.seg, of up to stats.storage.segment.records-per-file records each.
+ * A query reads only the segments of the hours it covers and aggregates them in memory before
+ * passing on the rows. Segments are memory-mapped only while hits are appended to them: mapped pages
+ * are forced to disk every stats.storage.segment.force-interval-ms and on shutdown, so a crash may lose
+ * the hits of the last interval, and a segment with no appends during a whole interval is unmapped.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.storage.engine", havingValue = "segment")
+public class SegmentHitStorage implements HitStorage {
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHH");
+    private static final Pattern SEGMENT_NAME = Pattern.compile("hits-(\\d{10})-(\\d{3})\\.seg");
+    private static final String DICTIONARY_FILE = "dictionary.dat";
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final long forceIntervalMs;
+    private final int retentionMonths;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ConcurrentSkipListMap<LocalDateTime, List<HitSegment>> segments = new ConcurrentSkipListMap<>();
+    private final Set<HitSegment> mappedSegments = ConcurrentHashMap.newKeySet();
+
+    private SegmentDictionary dictionary;
+    private ScheduledExecutorService maintenance;
+
+    public SegmentHitStorage(@Value("${stats.storage.segment.dir:data/hit-segments}") Path directory,
+                             @Value("${stats.storage.segment.records-per-file:1048576}") int recordsPerSegment,
+                             @Value("${stats.storage.segment.force-interval-ms:1000}") long forceIntervalMs,
+                             @Value("${stats.retention.months:0}") int retentionMonths) {
+        if (recordsPerSegment <= 0 || forceIntervalMs <= 0 || retentionMonths < 0) {
+            throw new IllegalArgumentException("Segment size and force interval must be positive, "
+                    + "retention must not be negative");
+        }
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        this.forceIntervalMs = forceIntervalMs;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        dictionary = SegmentDictionary.open(directory.resolve(DICTIONARY_FILE));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "hits-*.seg")) {
+            for (Path file : files) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                LocalDateTime hour = LocalDateTime.parse(matcher.group(1), HOUR_FORMAT);
+                segments.computeIfAbsent(hour, h -> new CopyOnWriteArrayList<>())
+                        .add(HitSegment.open(file, recordsPerSegment));
+            }
+        }
+        for (List<HitSegment> hourSegments : segments.values()) {
+            hourSegments.sort(Comparator.comparing(HitSegment::getPath));
+        }
+        log.info("Opened {} hit segment(s) in {}", segments.values().stream().mapToInt(List::size).sum(), directory);
+
+        // Stays a platform thread in virtual-thread mode: msync blocks its carrier anyway.
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stats-segment-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::maintain, forceIntervalMs, forceIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException, IOException {
+        if (maintenance != null) {
+            maintenance.shutdown();
+            maintenance.awaitTermination(forceIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        writeLock.lock();
+        try {
+            for (HitSegment segment : mappedSegments) {
+                segment.close();
+            }
+            mappedSegments.clear();
+            if (dictionary != null) {
+                dictionary.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public EndpointHitDto save(EndpointHitDto hit) {
+        saveAll(List.of(hit).iterator());
+        return hit;
+    }
+
+    @Override
+    public HitBatchResultDto saveAll(Iterator<EndpointHitDto> hits) {
+        long saved = 0;
+        writeLock.lock();
+        try {
+            while (hits.hasNext()) {
+                append(hits.next());
+                saved++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append hits to segment storage", e);
+        } finally {
+            writeLock.unlock();
+        }
+        return HitBatchResultDto.builder()
+                .received(saved)
+                .saved(saved)
+                .build();
+    }
+
+    @Override
+    public void streamStats(StatsQuery query, Consumer<ViewStatsDto> consumer) {
+        Set<Integer> uriIds = null;
+        if (query.hasUris()) {
+            uriIds = findUriIds(query.uris());
+            if (uriIds.isEmpty()) {
+                return;
+            }
+        }
+
+        LocalDateTime start = query.start();
+        LocalDateTime end = query.end();
+        boolean unique = query.unique();
+        boolean approximate = query.approximate();
+        long from = start.toEpochSecond(ZoneOffset.UTC);
+        long to = end.toEpochSecond(ZoneOffset.UTC);
+        ConcurrentNavigableMap<LocalDateTime, List<HitSegment>> covered = segments.subMap(
+                start.truncatedTo(ChronoUnit.HOURS), true, end.truncatedTo(ChronoUnit.HOURS), true);
+
+        Map<Long, Long> counts = new HashMap<>();
+        Map<Long, Set<IpKey>> exact = new HashMap<>();
+        Map<Long, HyperLogLog> sketches = new HashMap<>();
+        Set<Integer> filter = uriIds;
+        for (List<HitSegment> hourSegments : covered.values()) {
+            for (HitSegment segment : hourSegments) {
+                segment.scan(from, to, (buffer, offset) -> {
+                    int uriId = buffer.getInt(offset + HitSegment.URI_OFFSET);
+                    if (filter != null && !filter.contains(uriId)) {
+                        return;
+                    }
+                    long key = pairKey(buffer.getInt(offset + HitSegment.APP_OFFSET), uriId);
+                    if (!unique) {
+                        counts.merge(key, 1L, Long::sum);
+                        return;
+                    }
+                    long high = buffer.getLong(offset + HitSegment.IP_OFFSET);
+                    long low = buffer.getLong(offset + HitSegment.IP_OFFSET + Long.BYTES);
+                    if (approximate) {
+                        sketches.computeIfAbsent(key, k -> new HyperLogLog())
+                                .offer(Hashing.mix(high ^ Hashing.mix(low)));
+                    } else {
+                        exact.computeIfAbsent(key, k -> new HashSet<>()).add(new IpKey(high, low));
+                    }
+                });
+            }
+        }
+        exact.forEach((key, ips) -> counts.put(key, (long) ips.size()));
+        sketches.forEach((key, sketch) -> counts.put(key, sketch.estimate()));
+
+        List<ViewStatsDto> result = new ArrayList<>(counts.size());
+        counts.forEach((key, hits) -> result.add(new ViewStatsDto(
+                dictionary.valueOf(DictionaryKind.APP, (int) (key >>> 32)),
+                dictionary.valueOf(DictionaryKind.URI, (int) (long) key),
+                hits)));
+        result.sort(Comparator.comparing(ViewStatsDto::getHits).reversed());
+        int size = query.limit() == null ? result.size() : Math.min(query.limit(), result.size());
+        result.subList(0, size).forEach(consumer);
+    }
+
+    @Override
+    public void streamBucketCounts(LocalDateTime from, LocalDateTime to, RollupGranularity granularity,
+                                   List<String> uris, BucketCountConsumer consumer) {
+        Set<Integer> uriIds = findUriIds(uris);
+        if (uriIds.isEmpty() || !from.isBefore(to)) {
+            return;
+        }
+        long bucketSeconds = granularity.getSeconds();
+        long fromSecond = from.toEpochSecond(ZoneOffset.UTC);
+        long lastSecond = to.toEpochSecond(ZoneOffset.UTC) - 1;
+        ConcurrentNavigableMap<LocalDateTime, List<HitSegment>> covered = segments.subMap(
+                from.truncatedTo(ChronoUnit.HOURS), true, to.minusSeconds(1).truncatedTo(ChronoUnit.HOURS), true);
+
+        Map<BucketKey, Long> counts = new HashMap<>();
+        for (List<HitSegment> hourSegments : covered.values()) {
+            for (HitSegment segment : hourSegments) {
+                segment.scan(fromSecond, lastSecond, (buffer, offset) -> {
+                    int uriId = buffer.getInt(offset + HitSegment.URI_OFFSET);
+                    if (!uriIds.contains(uriId)) {
+                        return;
+                    }
+                    long timestamp = buffer.getLong(offset + HitSegment.TIMESTAMP_OFFSET);
+                    BucketKey key = new BucketKey(pairKey(buffer.getInt(offset + HitSegment.APP_OFFSET), uriId),
+                            Math.floorDiv(timestamp, bucketSeconds) * bucketSeconds);
+                    counts.merge(key, 1L, Long::sum);
+                });
+            }
+        }
+        counts.forEach((key, hits) -> consumer.accept(
+                dictionary.valueOf(DictionaryKind.APP, (int) (key.pair() >>> 32)),
+                dictionary.valueOf(DictionaryKind.URI, (int) key.pair()),
+                LocalDateTime.ofEpochSecond(key.bucketStart(), 0, ZoneOffset.UTC),
+                hits));
+    }
+
+    @Override
+    public Set<Visit> findStoredVisits(LocalDateTime start, LocalDateTime end, Collection<Visit> visits) {
+        Map<VisitKey, Visit> wanted = new HashMap<>();
+        for (Visit visit : visits) {
+            Integer appId = dictionary.find(DictionaryKind.APP, visit.app());
+            Integer uriId = dictionary.find(DictionaryKind.URI, visit.uri());
+            if (appId != null && uriId != null) {
+                ByteBuffer ip = ByteBuffer.wrap(toIpv6(IpAddresses.toBytes(visit.ip())));
+                wanted.put(new VisitKey(pairKey(appId, uriId), new IpKey(ip.getLong(), ip.getLong())), visit);
+            }
+        }
+        Set<Visit> stored = new HashSet<>();
+        if (wanted.isEmpty()) {
+            return stored;
+        }
+        long from = start.toEpochSecond(ZoneOffset.UTC);
+        long to = end.toEpochSecond(ZoneOffset.UTC);
+        ConcurrentNavigableMap<LocalDateTime, List<HitSegment>> covered = segments.subMap(
+                start.truncatedTo(ChronoUnit.HOURS), true, end.truncatedTo(ChronoUnit.HOURS), true);
+        for (List<HitSegment> hourSegments : covered.values()) {
+            for (HitSegment segment : hourSegments) {
+                segment.scan(from, to, (buffer, offset) -> {
+                    VisitKey key = new VisitKey(
+                            pairKey(buffer.getInt(offset + HitSegment.APP_OFFSET),
+                                    buffer.getInt(offset + HitSegment.URI_OFFSET)),
+                            new IpKey(buffer.getLong(offset + HitSegment.IP_OFFSET),
+                                    buffer.getLong(offset + HitSegment.IP_OFFSET + Long.BYTES)));
+                    Visit visit = wanted.get(key);
+                    if (visit != null) {
+                        stored.add(visit);
+                    }
+                });
+            }
+        }
+        return stored;
+    }
+
+    private Set<Integer> findUriIds(List<String> uris) {
+        Set<Integer> uriIds = new HashSet<>();
+        for (String uri : uris) {
+            Integer id = dictionary.find(DictionaryKind.URI, uri);
+            if (id != null) {
+                uriIds.add(id);
+            }
+        }
+        return uriIds;
+    }
+
+    private void append(EndpointHitDto hit) throws IOException {
+        LocalDateTime timestamp = hit.getTimestamp();
+        int appId = dictionary.getOrCreate(DictionaryKind.APP, hit.getApp());
+        int uriId = dictionary.getOrCreate(DictionaryKind.URI, hit.getUri());
+        byte[] ip = toIpv6(IpAddresses.toBytes(hit.getIp()));
+        long epochSecond = timestamp.toEpochSecond(ZoneOffset.UTC);
+
+        LocalDateTime hour = timestamp.truncatedTo(ChronoUnit.HOURS);
+        List<HitSegment> hourSegments = segments.computeIfAbsent(hour, h -> new CopyOnWriteArrayList<>());
+        HitSegment segment = hourSegments.isEmpty() ? null : hourSegments.get(hourSegments.size() - 1);
+        if (segment == null || !appendTo(segment, epochSecond, appId, uriId, ip)) {
+            Path file = directory.resolve(String.format("hits-%s-%03d.seg",
+                    HOUR_FORMAT.format(hour), hourSegments.size()));
+            segment = HitSegment.open(file, recordsPerSegment);
+            appendTo(segment, epochSecond, appId, uriId, ip);
+            hourSegments.add(segment);
+        }
+    }
+
+    private boolean appendTo(HitSegment segment, long epochSecond, int appId, int uriId, byte[] ip)
+            throws IOException {
+        boolean wasMapped = segment.isMapped();
+        if (!segment.append(epochSecond, appId, uriId, ip)) {
+            return false;
+        }
+        if (!wasMapped) {
+            mappedSegments.add(segment);
+        }
+        return true;
+    }
+
+    private void maintain() {
+        try {
+            for (HitSegment segment : mappedSegments) {
+                segment.force();
+                if (!segment.takeAppended()) {
+                    release(segment);
+                }
+            }
+            if (retentionMonths > 0) {
+                expire(LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1)
+                        .minusMonths(retentionMonths));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Hit segment maintenance failed", e);
+        }
+    }
+
+    private void release(HitSegment segment) throws IOException {
+        writeLock.lock();
+        try {
+            if (!segment.takeAppended()) {
+                segment.release();
+                mappedSegments.remove(segment);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes whole hours before the cutoff. Queries already reading a segment finish it;
+     * the ones that reach it after the deletion find no records.
+     */
+    private void expire(LocalDateTime cutoff) throws IOException {
+        Map<LocalDateTime, List<HitSegment>> expired = segments.headMap(cutoff);
+        for (LocalDateTime hour : List.copyOf(expired.keySet())) {
+            List<HitSegment> hourSegments;
+            writeLock.lock();
+            try {
+                hourSegments = segments.remove(hour);
+            } finally {
+                writeLock.unlock();
+            }
+            for (HitSegment segment : hourSegments) {
+                segment.close();
+                mappedSegments.remove(segment);
+                Files.deleteIfExists(segment.getPath());
+            }
+            log.info("Deleted {} hit segment(s) of {}", hourSegments.size(), hour);
+        }
+    }
+
+    private static long pairKey(int appId, int uriId) {
+        return ((long) appId << 32) | (uriId & 0xffffffffL);
+    }
+
+    private static byte[] toIpv6(byte[] address) {
+        if (address.length == 16) {
+            return address;
+        }
+        byte[] mapped = new byte[16];
+        mapped[10] = (byte) 0xff;
+        mapped[11] = (byte) 0xff;
+        System.arraycopy(address, 0, mapped, 12, 4);
+        return mapped;
+    }
+
+    private record IpKey(long high, long low) {
+    }
+
+    private record BucketKey(long pair, long bucketStart) {
+    }
+
+    private record VisitKey(long pair, IpKey ip) {
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.stats.server.timeseries;
+
+import ru.practicum.stats.server.sketch.Hashing;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hit counts of one minute by series id, in an open-addressing table of primitive ints.
+ * The column is reused for a later minute once the ring wraps around.
+ */
+final class MinuteColumn {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long minute = Long.MIN_VALUE;
+    private int[] keys = newKeys(INITIAL_CAPACITY);
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Ignored when the column already holds a later minute.
+     */
+    void increment(long epochMinute, int series) {
+        lock.lock();
+        try {
+            if (minute != epochMinute) {
+                if (minute > epochMinute) {
+                    return;
+                }
+                reset(epochMinute);
+            }
+            int slot = slot(keys, series);
+            if (keys[slot] == EMPTY) {
+                keys[slot] = series;
+                if (++size * 2 > keys.length) {
+                    grow();
+                    slot = slot(keys, series);
+                }
+            }
+            counts[slot]++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts of the given series in the minute, or null when the column holds another minute.
+     */
+    int[] read(long epochMinute, int[] series) {
+        lock.lock();
+        try {
+            if (minute != epochMinute || size == 0) {
+                return null;
+            }
+            int[] result = new int[series.length];
+            for (int i = 0; i < series.length; i++) {
+                int slot = slot(keys, series[i]);
+                result[i] = keys[slot] == EMPTY ? 0 : counts[slot];
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reset(long epochMinute) {
+        minute = epochMinute;
+        size = 0;
+        if (keys.length > INITIAL_CAPACITY) {
+            // Let a busy minute's table go instead of keeping it for the whole ring.
+            keys = newKeys(INITIAL_CAPACITY);
+            counts = new int[INITIAL_CAPACITY];
+        } else {
+            Arrays.fill(keys, EMPTY);
+            Arrays.fill(counts, 0);
+        }
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = newKeys(oldKeys.length * 2);
+        counts = new int[keys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int slot(int[] keys, int series) {
+        int mask = keys.length - 1;
+        int slot = (int) Hashing.mix(series) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != series) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int[] newKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+}
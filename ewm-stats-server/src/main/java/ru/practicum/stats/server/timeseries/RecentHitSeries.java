@@ -0,0 +1,110 @@
+package ru.practicum.stats.server.timeseries;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.stats.server.storage.BucketCountConsumer;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hits per app, uri and minute over the last stats.timeseries.retention-minutes, counted
+ * into a ring of minute columns once they are stored or buffered. Only minutes after startup are complete, so
+ * {@link #coveredFrom()} tells which part of a range can be answered from memory. Hits
+ * with timestamps outside the window are left to storage.
+ */
+@Component
+public class RecentHitSeries {
+    private final boolean enabled;
+    private final int retentionMinutes;
+    private final MinuteColumn[] columns;
+    private final long startedMinute;
+    private final Map<String, Map<String, Integer>> seriesIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSeriesId = new AtomicInteger();
+
+    public RecentHitSeries(@Value("${stats.timeseries.enabled:true}") boolean enabled,
+                           @Value("${stats.timeseries.retention-minutes:2880}") int retentionMinutes) {
+        if (retentionMinutes <= 0) {
+            throw new IllegalArgumentException("Time series retention must be positive");
+        }
+        this.enabled = enabled;
+        this.retentionMinutes = retentionMinutes;
+        // One spare column, so the next minute never overwrites one still in the window.
+        this.columns = new MinuteColumn[retentionMinutes + 1];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new MinuteColumn();
+        }
+        this.startedMinute = currentMinute();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void record(EndpointHitDto hit) {
+        if (!enabled) {
+            return;
+        }
+        long minute = Math.floorDiv(hit.getTimestamp().toEpochSecond(ZoneOffset.UTC), 60);
+        long now = currentMinute();
+        if (minute > now || minute <= now - retentionMinutes) {
+            return;
+        }
+        int series = seriesIds.computeIfAbsent(hit.getUri(), uri -> new ConcurrentHashMap<>())
+                .computeIfAbsent(hit.getApp(), app -> nextSeriesId.getAndIncrement());
+        column(minute).increment(minute, series);
+    }
+
+    /**
+     * Start of the minutes that memory holds completely: the first full minute after startup,
+     * or the oldest minute in the window plus one, so it is not rotated out while being read.
+     */
+    public LocalDateTime coveredFrom() {
+        long minute = Math.max(startedMinute + 1, currentMinute() - retentionMinutes + 2);
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Passes per-minute hits of the uris in [from, to), both whole minutes, in no particular order.
+     */
+    public void streamMinuteCounts(LocalDateTime from, LocalDateTime to, List<String> uris,
+                                   BucketCountConsumer consumer) {
+        for (String uri : uris) {
+            Map<String, Integer> byApp = seriesIds.get(uri);
+            if (byApp == null) {
+                continue;
+            }
+            String[] apps = byApp.keySet().toArray(new String[0]);
+            int[] series = new int[apps.length];
+            for (int i = 0; i < apps.length; i++) {
+                series[i] = byApp.get(apps[i]);
+            }
+            long last = to.toEpochSecond(ZoneOffset.UTC) / 60;
+            for (long minute = from.toEpochSecond(ZoneOffset.UTC) / 60; minute < last; minute++) {
+                int[] counts = column(minute).read(minute, series);
+                if (counts == null) {
+                    continue;
+                }
+                LocalDateTime bucketStart = LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) {
+                        consumer.accept(apps[i], uri, bucketStart, counts[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private MinuteColumn column(long minute) {
+        return columns[(int) Math.floorMod(minute, (long) columns.length)];
+    }
+
+    private static long currentMinute() {
+        return Math.floorDiv(LocalDateTime.now().toEpochSecond(ZoneOffset.UTC), 60);
+    }
+}
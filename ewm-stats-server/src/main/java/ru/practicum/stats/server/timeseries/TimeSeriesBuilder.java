@@ -0,0 +1,60 @@
+package ru.practicum.stats.server.timeseries;
+
+import ru.practicum.dto.ViewStatsSeriesDto;
+import ru.practicum.stats.server.storage.BucketCountConsumer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sums bucket counts into the steps of a query; buckets must not straddle steps.
+ */
+public class TimeSeriesBuilder implements BucketCountConsumer {
+    private final TimeSeriesQuery query;
+    private final Map<SeriesKey, long[]> series = new HashMap<>();
+
+    public TimeSeriesBuilder(TimeSeriesQuery query) {
+        this.query = query;
+    }
+
+    @Override
+    public void accept(String app, String uri, LocalDateTime bucketStart, long hits) {
+        long minutes = Duration.between(query.from(), bucketStart).toMinutes();
+        int index = (int) (minutes / query.stepMinutes());
+        if (minutes < 0 || index >= query.bucketCount()) {
+            return;
+        }
+        series.computeIfAbsent(new SeriesKey(app, uri), key -> new long[(int) query.bucketCount()])[index] += hits;
+    }
+
+    /**
+     * One series per app and uri with hits, busiest first.
+     */
+    public List<ViewStatsSeriesDto> build() {
+        List<Map.Entry<SeriesKey, long[]>> entries = new ArrayList<>(series.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<SeriesKey, long[]> entry) ->
+                        Arrays.stream(entry.getValue()).sum()).reversed()
+                .thenComparing(entry -> entry.getKey().uri())
+                .thenComparing(entry -> entry.getKey().app()));
+        List<ViewStatsSeriesDto> result = new ArrayList<>(entries.size());
+        for (Map.Entry<SeriesKey, long[]> entry : entries) {
+            result.add(ViewStatsSeriesDto.builder()
+                    .app(entry.getKey().app())
+                    .uri(entry.getKey().uri())
+                    .from(query.from())
+                    .stepSeconds(query.step().toSeconds())
+                    .hits(Arrays.stream(entry.getValue()).boxed().toList())
+                    .build());
+        }
+        return result;
+    }
+
+    private record SeriesKey(String app, String uri) {
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.stats.server.timeseries;
+
+import ru.practicum.stats.server.rollup.RollupGranularity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A /stats/timeseries query: hits of the uris in [from, to) per step. from is rounded down
+ * and to up to whole minutes; the last step may end past to.
+ */
+public record TimeSeriesQuery(LocalDateTime from, LocalDateTime to, List<String> uris, Duration step) {
+    private static final Pattern STEP = Pattern.compile("(\\d{1,6})([mhd])");
+
+    public TimeSeriesQuery {
+        if (uris == null || uris.isEmpty()) {
+            throw new IllegalArgumentException("At least one uri is required");
+        }
+        uris = List.copyOf(new LinkedHashSet<>(uris));
+        from = RollupGranularity.MINUTE.floor(from);
+        to = RollupGranularity.MINUTE.ceil(to);
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("From must be before to");
+        }
+        if (step.isNegative() || step.isZero() || step.toSecondsPart() != 0) {
+            throw new IllegalArgumentException("Step must be a positive number of minutes");
+        }
+    }
+
+    /**
+     * Parses a step such as 1m, 15m, 1h or 1d.
+     */
+    public static Duration parseStep(String step) {
+        Matcher matcher = STEP.matcher(step);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Unknown step: " + step + ", expected e.g. 1m, 15m, 1h or 1d");
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        return switch (matcher.group(2)) {
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> Duration.ofDays(amount);
+        };
+    }
+
+    public long stepMinutes() {
+        return step.toMinutes();
+    }
+
+    public long bucketCount() {
+        long minutes = Duration.between(from, to).toMinutes();
+        return (minutes + stepMinutes() - 1) / stepMinutes();
+    }
+
+    /**
+     * Start of the first step that begins at or after the given time, but not later than to.
+     */
+    public LocalDateTime stepBoundaryAtOrAfter(LocalDateTime time) {
+        if (!time.isAfter(from)) {
+            return from;
+        }
+        long minutes = Duration.between(from, time).toMinutes();
+        long steps = (minutes + stepMinutes() - 1) / stepMinutes();
+        LocalDateTime boundary = from.plusMinutes(steps * stepMinutes());
+        return boundary.isBefore(to) ? boundary : to;
+    }
+
+    /**
+     * The coarsest rollup whose buckets fit into steps, given [from, end) is read from storage.
+     */
+    public RollupGranularity granularityUntil(LocalDateTime end) {
+        RollupGranularity[] levels = RollupGranularity.values();
+        for (int i = levels.length - 1; i > 0; i--) {
+            RollupGranularity granularity = levels[i];
+            if (step.toSeconds() % granularity.getSeconds() == 0
+                    && granularity.isAligned(from) && granularity.isAligned(end)) {
+                return granularity;
+            }
+        }
+        return RollupGranularity.MINUTE;
+    }
+}
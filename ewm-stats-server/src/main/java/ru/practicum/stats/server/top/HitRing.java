@@ -0,0 +1,72 @@
+package ru.practicum.stats.server.top;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ring of Space-Saving summaries, one per step of a window, reused as the window slides.
+ */
+final class HitRing {
+    private final TopWindow window;
+    private final int capacity;
+    private final SpaceSaving[] buckets;
+    private final long[] bucketStarts;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    HitRing(TopWindow window, int capacity) {
+        this.window = window;
+        this.capacity = capacity;
+        this.buckets = new SpaceSaving[window.bucketCount()];
+        this.bucketStarts = new long[buckets.length];
+        Arrays.fill(bucketStarts, Long.MIN_VALUE);
+    }
+
+    /**
+     * Hits outside the window or later than the current step are ignored.
+     */
+    void offer(long epochSecond, String uri, long nowEpochSecond) {
+        long step = window.getStepSeconds();
+        long start = Math.floorDiv(epochSecond, step) * step;
+        if (start + step <= nowEpochSecond - window.getLengthSeconds() || start > nowEpochSecond) {
+            return;
+        }
+        int slot = (int) Math.floorMod(start / step, (long) buckets.length);
+        lock.lock();
+        try {
+            if (bucketStarts[slot] != start) {
+                if (bucketStarts[slot] > start) {
+                    return;
+                }
+                if (buckets[slot] == null) {
+                    buckets[slot] = new SpaceSaving(capacity);
+                } else {
+                    buckets[slot].clear();
+                }
+                bucketStarts[slot] = start;
+            }
+            buckets[slot].offer(uri);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the counts of the steps that overlap the window ending now to {@code totals}.
+     */
+    void collect(long nowEpochSecond, Map<String, Long> totals) {
+        long step = window.getStepSeconds();
+        long from = nowEpochSecond - window.getLengthSeconds();
+        lock.lock();
+        try {
+            for (int slot = 0; slot < buckets.length; slot++) {
+                long start = bucketStarts[slot];
+                if (buckets[slot] != null && start + step > from && start <= nowEpochSecond) {
+                    buckets[slot].forEach((uri, count) -> totals.merge(uri, count, Long::sum));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ru.practicum.stats.server.top;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Space-Saving heavy-hitters summary that keeps at most {@code capacity} counters.
+ * A new key replaces the key with the smallest count and inherits that count plus one,
+ * so counts are upper bounds, overestimated by at most the smallest count; any key
+ * seen more than total / capacity times is guaranteed to be kept. Not thread-safe.
+ */
+public class SpaceSaving {
+    private final int capacity;
+    private final Map<String, Long> counts = new HashMap<>();
+    private final TreeMap<Long, Set<String>> keysByCount = new TreeMap<>();
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public void offer(String key) {
+        Long count = counts.get(key);
+        if (count == null && counts.size() >= capacity) {
+            Map.Entry<Long, Set<String>> smallest = keysByCount.firstEntry();
+            String evicted = smallest.getValue().iterator().next();
+            unlink(evicted, smallest.getKey());
+            counts.remove(evicted);
+            count = smallest.getKey();
+        } else if (count != null) {
+            unlink(key, count);
+        } else {
+            count = 0L;
+        }
+        long incremented = count + 1;
+        counts.put(key, incremented);
+        keysByCount.computeIfAbsent(incremented, c -> new LinkedHashSet<>()).add(key);
+    }
+
+    public void forEach(ObjLongConsumer<String> consumer) {
+        counts.forEach(consumer::accept);
+    }
+
+    public void clear() {
+        counts.clear();
+        keysByCount.clear();
+    }
+
+    private void unlink(String key, long count) {
+        Set<String> keys = keysByCount.get(count);
+        keys.remove(key);
+        if (keys.isEmpty()) {
+            keysByCount.remove(count);
+        }
+    }
+}
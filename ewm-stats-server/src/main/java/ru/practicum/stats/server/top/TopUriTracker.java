@@ -0,0 +1,106 @@
+package ru.practicum.stats.server.top;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.ViewStatsDto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Most visited uris per app over the last 5m, 1h and 24h, kept in memory and updated
+ * once hits are stored or buffered. Rankings are rebuilt every stats.top.refresh-interval-ms,
+ * so reads only slice a ready list. Counts are Space-Saving upper bounds and cover hits
+ * accepted since startup.
+ */
+@Component
+public class TopUriTracker {
+    private static final Comparator<ViewStatsDto> BY_HITS_DESC =
+            Comparator.comparing(ViewStatsDto::getHits).reversed();
+
+    private final boolean enabled;
+    private final int capacity;
+    private final Map<String, Map<TopWindow, HitRing>> rings = new ConcurrentHashMap<>();
+
+    private volatile Map<TopWindow, Map<String, List<ViewStatsDto>>> rankings = Map.of();
+
+    public TopUriTracker(@Value("${stats.top.enabled:true}") boolean enabled,
+                         @Value("${stats.top.capacity:1000}") int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Top uri capacity must be positive");
+        }
+        this.enabled = enabled;
+        this.capacity = capacity;
+    }
+
+    public void record(EndpointHitDto hit) {
+        if (!enabled) {
+            return;
+        }
+        long now = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+        long timestamp = hit.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+        for (HitRing ring : rings.computeIfAbsent(hit.getApp(), app -> newRings()).values()) {
+            ring.offer(timestamp, hit.getUri(), now);
+        }
+    }
+
+    /**
+     * Without an app the rankings of all apps are combined.
+     */
+    public List<ViewStatsDto> getTop(TopWindow window, int n, String app) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        Map<String, List<ViewStatsDto>> byApp = rankings.getOrDefault(window, Map.of());
+        List<ViewStatsDto> ranking;
+        if (app != null) {
+            ranking = byApp.getOrDefault(app, List.of());
+        } else if (byApp.size() == 1) {
+            ranking = byApp.values().iterator().next();
+        } else {
+            ranking = new ArrayList<>();
+            byApp.values().forEach(ranking::addAll);
+            ranking.sort(BY_HITS_DESC);
+        }
+        return List.copyOf(ranking.subList(0, Math.min(n, ranking.size())));
+    }
+
+    @Scheduled(fixedDelayString = "${stats.top.refresh-interval-ms:1000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        long now = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+        Map<TopWindow, Map<String, List<ViewStatsDto>>> refreshed = new EnumMap<>(TopWindow.class);
+        for (TopWindow window : TopWindow.values()) {
+            Map<String, List<ViewStatsDto>> byApp = new HashMap<>();
+            rings.forEach((app, appRings) -> {
+                Map<String, Long> totals = new HashMap<>();
+                appRings.get(window).collect(now, totals);
+                List<ViewStatsDto> ranking = new ArrayList<>(totals.size());
+                totals.forEach((uri, hits) -> ranking.add(new ViewStatsDto(app, uri, hits)));
+                ranking.sort(BY_HITS_DESC);
+                byApp.put(app, List.copyOf(ranking.subList(0, Math.min(capacity, ranking.size()))));
+            });
+            refreshed.put(window, byApp);
+        }
+        rankings = refreshed;
+    }
+
+    private Map<TopWindow, HitRing> newRings() {
+        Map<TopWindow, HitRing> appRings = new EnumMap<>(TopWindow.class);
+        for (TopWindow window : TopWindow.values()) {
+            appRings.put(window, new HitRing(window, capacity));
+        }
+        return appRings;
+    }
+}
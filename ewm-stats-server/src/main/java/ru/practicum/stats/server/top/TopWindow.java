@@ -0,0 +1,44 @@
+package ru.practicum.stats.server.top;
+
+import java.time.Duration;
+
+/**
+ * Sliding windows of /stats/top. Each is kept as a ring of sub-buckets of {@code step},
+ * so the window slides in steps and may include up to one extra step of older hits.
+ */
+public enum TopWindow {
+    FIVE_MINUTES("5m", Duration.ofMinutes(5), Duration.ofSeconds(10)),
+    ONE_HOUR("1h", Duration.ofHours(1), Duration.ofMinutes(1)),
+    ONE_DAY("24h", Duration.ofHours(24), Duration.ofMinutes(30));
+
+    private final String label;
+    private final long lengthSeconds;
+    private final long stepSeconds;
+
+    TopWindow(String label, Duration length, Duration step) {
+        this.label = label;
+        this.lengthSeconds = length.toSeconds();
+        this.stepSeconds = step.toSeconds();
+    }
+
+    public static TopWindow of(String label) {
+        for (TopWindow window : values()) {
+            if (window.label.equals(label)) {
+                return window;
+            }
+        }
+        throw new IllegalArgumentException("Unknown window: " + label + ", expected 5m, 1h or 24h");
+    }
+
+    public long getLengthSeconds() {
+        return lengthSeconds;
+    }
+
+    public long getStepSeconds() {
+        return stepSeconds;
+    }
+
+    int bucketCount() {
+        return (int) (lengthSeconds / stepSeconds) + 1;
+    }
+}
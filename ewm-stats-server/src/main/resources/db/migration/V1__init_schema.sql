@@ -1,7 +1,10 @@
+-- Schema as it was previously created by stats-db/init.sql.
+-- Existing databases are baselined at this version, so it must not change; later changes go into V2+.
+
 CREATE TABLE IF NOT EXISTS hits (
     id BIGSERIAL PRIMARY KEY,
     app VARCHAR(255) NOT NULL,
     uri VARCHAR(512) NOT NULL,
     ip VARCHAR(50) NOT NULL,
     timestamp TIMESTAMP NOT NULL
-);
\ No newline at end of file
+);
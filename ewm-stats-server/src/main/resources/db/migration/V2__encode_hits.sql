@@ -0,0 +1,39 @@
+-- app and uri values are stored once in dictionary tables and referenced by id, ip becomes inet.
+CREATE TABLE apps (
+    id SERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE uris (
+    id SERIAL PRIMARY KEY,
+    uri VARCHAR(512) NOT NULL UNIQUE
+);
+
+INSERT INTO apps (name) SELECT DISTINCT app FROM hits;
+INSERT INTO uris (uri) SELECT DISTINCT uri FROM hits;
+
+-- Hits stored before ips were validated may hold values that are not addresses; they keep counting as 0.0.0.0.
+CREATE FUNCTION pg_temp.to_inet(value TEXT) RETURNS INET AS $$
+BEGIN
+    RETURN value::inet;
+EXCEPTION
+    WHEN others THEN
+        RETURN '0.0.0.0'::inet;
+END
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+ALTER TABLE hits
+    ADD COLUMN app_id INTEGER,
+    ADD COLUMN uri_id INTEGER;
+
+UPDATE hits h
+SET app_id = a.id, uri_id = u.id
+FROM apps a, uris u
+WHERE a.name = h.app AND u.uri = h.uri;
+
+ALTER TABLE hits
+    ALTER COLUMN app_id SET NOT NULL,
+    ALTER COLUMN uri_id SET NOT NULL,
+    DROP COLUMN app,
+    DROP COLUMN uri,
+    ALTER COLUMN ip TYPE INET USING pg_temp.to_inet(ip);
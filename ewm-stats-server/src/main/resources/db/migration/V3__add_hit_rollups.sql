@@ -0,0 +1,25 @@
+CREATE TABLE hit_rollups (
+    granularity VARCHAR(6) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, app_id, uri_id)
+);
+
+-- Rollups are maintained from newly stored hits; hits stored before they existed are rolled up once here.
+INSERT INTO hit_rollups (granularity, bucket_start, app_id, uri_id, hits)
+SELECT g.granularity, date_trunc(g.unit, h.timestamp), h.app_id, h.uri_id, COUNT(*)
+FROM hits h
+CROSS JOIN (VALUES ('MINUTE', 'minute'), ('HOUR', 'hour'), ('DAY', 'day')) AS g (granularity, unit)
+GROUP BY g.granularity, date_trunc(g.unit, h.timestamp), h.app_id, h.uri_id;
+
+-- Hits stored but not yet folded into the aggregates. Requests only append here; HitAggregator
+-- drains it in batches, so no request holds locks on shared aggregate rows.
+CREATE TABLE hit_aggregation_queue (
+    id BIGSERIAL PRIMARY KEY,
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    ip INET NOT NULL,
+    timestamp TIMESTAMP NOT NULL
+);
@@ -0,0 +1,9 @@
+-- One encoded HyperLogLog sketch per bucket; V5 builds the sketches of hits stored before this table.
+CREATE TABLE hit_sketches (
+    granularity VARCHAR(6) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    registers BYTEA NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, app_id, uri_id)
+);
@@ -0,0 +1,38 @@
+-- Converts hits into a table partitioned by month. Every month that already has hits gets its own
+-- partition, so that retention can expire it; later months are created ahead by HitPartitionManager,
+-- and the default partition only catches hits outside the managed range.
+ALTER TABLE hits RENAME TO hits_unpartitioned;
+ALTER TABLE hits_unpartitioned RENAME CONSTRAINT hits_pkey TO hits_unpartitioned_pkey;
+ALTER SEQUENCE hits_id_seq OWNED BY NONE;
+
+CREATE TABLE hits (
+    id BIGINT NOT NULL DEFAULT nextval('hits_id_seq'),
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    ip INET NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+ALTER SEQUENCE hits_id_seq OWNED BY hits.id;
+
+CREATE TABLE hits_default PARTITION OF hits DEFAULT;
+
+DO $$
+DECLARE
+    month_start TIMESTAMP;
+BEGIN
+    FOR month_start IN SELECT DISTINCT date_trunc('month', timestamp) FROM hits_unpartitioned LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF hits FOR VALUES FROM (%L) TO (%L)',
+                'hits_' || to_char(month_start, 'YYYY_MM'), month_start, month_start + INTERVAL '1 month');
+    END LOOP;
+END
+$$;
+
+INSERT INTO hits (id, app_id, uri_id, ip, timestamp)
+SELECT id, app_id, uri_id, ip, timestamp FROM hits_unpartitioned;
+
+DROP TABLE hits_unpartitioned;
+
+CREATE INDEX idx_hits_uri_timestamp ON hits (uri_id, timestamp);
+CREATE INDEX idx_hits_timestamp ON hits (timestamp);
@@ -0,0 +1,55 @@
+package ru.practicum.stats.server.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HitDeduplicatorTest {
+    private static final long WINDOW_MS = 600_000;
+
+    @Test
+    void keyIsPendingUntilCompletedAndDuplicateAfter() {
+        HitDeduplicator deduplicator = new HitDeduplicator(true, WINDOW_MS, 1_000_000);
+
+        assertThat(deduplicator.register("key")).isEqualTo(KeyRegistration.NEW);
+        assertThat(deduplicator.register("key")).isEqualTo(KeyRegistration.PENDING);
+
+        deduplicator.complete("key");
+
+        assertThat(deduplicator.register("key")).isEqualTo(KeyRegistration.DUPLICATE);
+        assertThat(deduplicator.register("other")).isEqualTo(KeyRegistration.NEW);
+    }
+
+    @Test
+    void forgottenKeyIsAcceptedAgain() {
+        HitDeduplicator deduplicator = new HitDeduplicator(true, WINDOW_MS, 1_000_000);
+        deduplicator.register("key");
+
+        deduplicator.forget("key");
+
+        assertThat(deduplicator.register("key")).isEqualTo(KeyRegistration.NEW);
+    }
+
+    @Test
+    void completedKeyExpiresWithTheWindow() throws InterruptedException {
+        long windowMs = 10;
+        HitDeduplicator deduplicator = new HitDeduplicator(true, windowMs, 1_000_000);
+        deduplicator.register("key");
+        deduplicator.complete("key");
+
+        // The window keeps one spare bucket, so it can last up to 11 ms.
+        Thread.sleep(windowMs * 5);
+
+        assertThat(deduplicator.register("key")).isEqualTo(KeyRegistration.NEW);
+    }
+
+    @Test
+    void disabledDeduplicatorAcceptsEveryKey() {
+        HitDeduplicator deduplicator = new HitDeduplicator(false, WINDOW_MS, 1_000_000);
+        deduplicator.register("key");
+        deduplicator.complete("key");
+
+        assertThat(deduplicator.register("key")).isEqualTo(KeyRegistration.NEW);
+        assertThat(deduplicator.register(null)).isEqualTo(KeyRegistration.NEW);
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.stats.server.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.dto.EndpointHitDto;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HitJournalTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void replaySkipsATornLastRecord() throws IOException {
+        HitJournal journal = journal();
+        List<EndpointHitDto> hits = List.of(hit("/events/1"), hit("/events/2"));
+        journal.append(hits);
+        Path segment = journal.rotate().get(0);
+        // A crash in the middle of a write leaves a partial line at the end of the segment.
+        Files.writeString(segment, "{\"app\":\"ewm-main-service\",\"uri\":\"/ev", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        assertThat(journal().replay()).isEqualTo(hits);
+    }
+
+    @Test
+    void replayKeepsSegmentsUntilDeletedAndContinuesTheirNumbering() {
+        HitJournal journal = journal();
+        journal.append(List.of(hit("/events/1")));
+        journal.rotate();
+
+        HitJournal restarted = journal();
+        assertThat(restarted.replay()).containsExactly(hit("/events/1"));
+        restarted.append(List.of(hit("/events/2")));
+        List<Path> segments = restarted.rotate();
+        assertThat(segments).hasSize(2).doesNotHaveDuplicates();
+
+        restarted.delete(segments);
+        assertThat(journal().replay()).isEmpty();
+    }
+
+    private HitJournal journal() {
+        return new HitJournal(objectMapper, true, directory, FsyncPolicy.ALWAYS);
+    }
+
+    static EndpointHitDto hit(String uri) {
+        return EndpointHitDto.builder()
+                .app("ewm-main-service")
+                .uri(uri)
+                .ip("192.168.0.1")
+                .timestamp(LocalDateTime.of(2026, 1, 1, 12, 0))
+                .build();
+    }
+}
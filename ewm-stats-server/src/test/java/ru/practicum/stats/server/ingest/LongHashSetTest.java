@@ -0,0 +1,60 @@
+package ru.practicum.stats.server.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongHashSetTest {
+    // 15, 31 and 47 all hash to the last slot of the initial table, so 31 and 47 wrap around to slots 0 and 1.
+    private static final long LAST = 15;
+    private static final long WRAPPED = 31;
+    private static final long WRAPPED_TWICE = 47;
+    // Hashes to slot 1, which WRAPPED_TWICE already holds, so it is probed to slot 2.
+    private static final long DISPLACED = 1;
+
+    @Test
+    void removingTheLastSlotKeepsTheWrappedEntriesReachable() {
+        LongHashSet set = filled();
+
+        assertThat(set.remove(LAST)).isTrue();
+
+        assertThat(set.contains(LAST)).isFalse();
+        assertThat(set.contains(WRAPPED)).isTrue();
+        assertThat(set.contains(WRAPPED_TWICE)).isTrue();
+        assertThat(set.contains(DISPLACED)).isTrue();
+        assertThat(set.size()).isEqualTo(3);
+    }
+
+    @Test
+    void removingAWrappedEntryKeepsTheEntriesProbedPastIt() {
+        LongHashSet set = filled();
+
+        assertThat(set.remove(WRAPPED)).isTrue();
+
+        assertThat(set.contains(WRAPPED)).isFalse();
+        assertThat(set.contains(LAST)).isTrue();
+        assertThat(set.contains(WRAPPED_TWICE)).isTrue();
+        assertThat(set.contains(DISPLACED)).isTrue();
+    }
+
+    @Test
+    void removedValueCanBeAddedAgain() {
+        LongHashSet set = filled();
+        set.remove(LAST);
+
+        assertThat(set.remove(LAST)).isFalse();
+        assertThat(set.add(LAST)).isTrue();
+        assertThat(set.add(WRAPPED)).isFalse();
+        assertThat(set.contains(LAST)).isTrue();
+        assertThat(set.size()).isEqualTo(4);
+    }
+
+    private static LongHashSet filled() {
+        LongHashSet set = new LongHashSet();
+        set.add(LAST);
+        set.add(WRAPPED);
+        set.add(WRAPPED_TWICE);
+        set.add(DISPLACED);
+        return set;
+    }
+}
@@ -0,0 +1,116 @@
+package ru.practicum.stats.server.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.stubbing.Answer;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitBatchResultDto;
+import ru.practicum.stats.server.metrics.StatsMetrics;
+import ru.practicum.stats.server.storage.HitStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static ru.practicum.stats.server.ingest.HitJournalTest.hit;
+
+class WriteBehindHitBufferTest {
+    private static final int CAPACITY = 3;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final HitStorage storage = mock(HitStorage.class);
+    private final List<EndpointHitDto> stored = new ArrayList<>();
+
+    @TempDir
+    private Path directory;
+
+    private WriteBehindHitBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        HitJournal journal = new HitJournal(objectMapper, true, directory, FsyncPolicy.ALWAYS);
+        StatsMetrics metrics = new StatsMetrics(new SimpleMeterRegistry(), "jdbc");
+        buffer = new WriteBehindHitBuffer(storage, journal, metrics, IngestMode.WRITE_BEHIND, CAPACITY,
+                1000, 1000, false);
+    }
+
+    @Test
+    void failedFlushKeepsTheHitsAndTheirSegments() throws IOException {
+        when(storage.saveAll(any())).thenThrow(new IllegalStateException("storage is down")).thenAnswer(store());
+        buffer.append(List.of(hit("/events/1"), hit("/events/2")));
+
+        assertThatThrownBy(buffer::flush).isInstanceOf(IllegalStateException.class);
+
+        assertThat(buffer.getBufferedCount()).isEqualTo(2);
+        assertThat(segments()).hasSize(1);
+        assertThat(new HitJournal(objectMapper, true, directory, FsyncPolicy.ALWAYS).replay())
+                .containsExactly(hit("/events/1"), hit("/events/2"));
+
+        buffer.append(List.of(hit("/events/3")));
+        buffer.flush();
+
+        assertThat(stored).containsExactly(hit("/events/1"), hit("/events/2"), hit("/events/3"));
+        assertThat(buffer.getBufferedCount()).isZero();
+        assertThat(segments()).isEmpty();
+    }
+
+    @Test
+    void batchThatDoesNotFitIsLeftOutWhenTheFlushFails() {
+        when(storage.saveAll(any())).thenThrow(new IllegalStateException("storage is down"));
+        buffer.append(List.of(hit("/events/1"), hit("/events/2")));
+
+        assertThatThrownBy(() -> buffer.append(List.of(hit("/events/3"), hit("/events/4"))))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(buffer.getBufferedCount()).isEqualTo(2);
+        assertThat(unwritten())
+                .containsExactly(hit("/events/1"), hit("/events/2"));
+    }
+
+    @Test
+    void batchThatDoesNotFitIsAppendedAfterAFlush() {
+        when(storage.saveAll(any())).thenAnswer(store());
+        buffer.append(List.of(hit("/events/1"), hit("/events/2")));
+
+        buffer.append(List.of(hit("/events/3"), hit("/events/4")));
+
+        assertThat(stored).containsExactly(hit("/events/1"), hit("/events/2"));
+        assertThat(unwritten())
+                .containsExactly(hit("/events/3"), hit("/events/4"));
+    }
+
+    private Answer<HitBatchResultDto> store() {
+        return invocation -> {
+            Iterator<EndpointHitDto> hits = invocation.getArgument(0);
+            long saved = 0;
+            while (hits.hasNext()) {
+                stored.add(hits.next());
+                saved++;
+            }
+            return new HitBatchResultDto(saved, saved, 0);
+        };
+    }
+
+    private List<EndpointHitDto> unwritten() {
+        return buffer.readWithUnwritten(hit -> true, List::copyOf);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+}
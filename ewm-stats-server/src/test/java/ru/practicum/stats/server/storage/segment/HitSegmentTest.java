@@ -0,0 +1,72 @@
+package ru.practicum.stats.server.storage.segment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HitSegmentTest {
+    private static final int MAX_CAPACITY = 3 * HitSegment.INITIAL_CAPACITY;
+    private static final byte[] IP = new byte[16];
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void newSegmentStartsSmallAndGrowsUpToItsCapacity() throws IOException {
+        Path file = directory.resolve("hits-2026010112-000.seg");
+        try (HitSegment segment = HitSegment.open(file, MAX_CAPACITY)) {
+            assertThat(Files.size(file)).isLessThan((long) MAX_CAPACITY * HitSegment.RECORD_SIZE);
+
+            for (int i = 0; i < MAX_CAPACITY; i++) {
+                assertThat(segment.append(i, 1, 2, IP)).isTrue();
+            }
+            assertThat(segment.append(MAX_CAPACITY, 1, 2, IP)).isFalse();
+            assertThat(timestamps(segment, 0, Long.MAX_VALUE)).hasSize(MAX_CAPACITY);
+        }
+    }
+
+    @Test
+    void releasedAndReopenedSegmentsAreScannedUnmappedAndMappedAgainForAppends() throws IOException {
+        Path file = directory.resolve("hits-2026010112-000.seg");
+        HitSegment segment = HitSegment.open(file, MAX_CAPACITY);
+        segment.append(10, 1, 2, IP);
+        segment.append(20, 1, 2, IP);
+        segment.release();
+
+        assertThat(segment.isMapped()).isFalse();
+        assertThat(timestamps(segment, 15, 30)).containsExactly(20L);
+
+        HitSegment reopened = HitSegment.open(file, MAX_CAPACITY);
+        assertThat(reopened.isMapped()).isFalse();
+        assertThat(timestamps(reopened, 0, 30)).containsExactly(10L, 20L);
+
+        assertThat(reopened.append(30, 1, 2, IP)).isTrue();
+        assertThat(reopened.isMapped()).isTrue();
+        reopened.close();
+        assertThat(timestamps(HitSegment.open(file, MAX_CAPACITY), 0, 30)).containsExactly(10L, 20L, 30L);
+    }
+
+    @Test
+    void deletedSegmentHasNoRecords() throws IOException {
+        Path file = directory.resolve("hits-2026010112-000.seg");
+        HitSegment segment = HitSegment.open(file, MAX_CAPACITY);
+        segment.append(10, 1, 2, IP);
+        segment.close();
+        Files.delete(file);
+
+        assertThat(timestamps(segment, 0, 30)).isEmpty();
+    }
+
+    private static List<Long> timestamps(HitSegment segment, long from, long to) {
+        List<Long> timestamps = new ArrayList<>();
+        segment.scan(from, to, (buffer, offset) -> timestamps.add(buffer.getLong(offset + HitSegment.TIMESTAMP_OFFSET)));
+        return timestamps;
+    }
+}